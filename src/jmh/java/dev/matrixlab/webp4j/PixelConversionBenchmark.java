@@ -0,0 +1,91 @@
+package dev.matrixlab.webp4j;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the conversion of a BufferedImage into the RGB/RGBA bytes handed to libwebp, i.e. the Java
+ * side of {@link WebPCodec#encodeImage(BufferedImage, float)}, per image type.
+ * <p>
+ * {@code fastPath} is the type-specific conversion, {@code getRGB} the generic conversion that gray and
+ * palette images used before they got their own fast paths. Run from the packaged jar:
+ * <pre>
+ * mvn -Pjmh verify -Dgpg.skip -Djmh.args=PixelConversionBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PixelConversionBenchmark {
+
+    @Param({"INT_RGB", "BYTE_GRAY", "USHORT_GRAY", "BYTE_INDEXED"})
+    public String type;
+
+    private BufferedImage image;
+    private byte[] output;
+
+    @Setup
+    public void setUp() {
+        int width = 2000;
+        int height = 1500;
+        switch (type) {
+            case "INT_RGB":
+                image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+                break;
+            case "BYTE_GRAY":
+                image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+                break;
+            case "USHORT_GRAY":
+                image = new BufferedImage(width, height, BufferedImage.TYPE_USHORT_GRAY);
+                break;
+            case "BYTE_INDEXED":
+                image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown image type: " + type);
+        }
+
+        // Random samples in every band, so that every lookup table or palette entry is used
+        WritableRaster raster = image.getRaster();
+        Random random = new Random(42);
+        int maxSample = (1 << raster.getSampleModel().getSampleSize(0)) - 1;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                for (int band = 0; band < raster.getNumBands(); band++) {
+                    raster.setSample(x, y, band, random.nextInt(maxSample + 1));
+                }
+            }
+        }
+
+        output = new byte[width * height * (image.getColorModel().hasAlpha() ? 4 : 3)];
+    }
+
+    @Benchmark
+    public byte[] fastPath() {
+        return WebPCodec.convertBufferedImageToBytes(image);
+    }
+
+    @Benchmark
+    public byte[] getRGB() {
+        WebPCodec.processImageByRows(image, output, image.getWidth(), image.getHeight(),
+                image.getColorModel().hasAlpha());
+        return output;
+    }
+}
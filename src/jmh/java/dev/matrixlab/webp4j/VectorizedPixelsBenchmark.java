@@ -0,0 +1,84 @@
+package dev.matrixlab.webp4j;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the Vector API kernels of the Java 21 layer with the scalar loops, on the image types that use them.
+ * <p>
+ * Both benchmarks fork with {@code jdk.incubator.vector} enabled; {@code scalar} switches the kernels off with
+ * {@code -Ddev.matrixlab.webp4j.vector=false}, so the only difference is the kernels. Needs JDK 21+ and the
+ * packaged jar (the jmh profile runs against it):
+ * <pre>
+ * mvn -Pjmh verify -Dgpg.skip -Djmh.args=VectorizedPixelsBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class VectorizedPixelsBenchmark {
+
+    @Param({"INT_ARGB", "INT_RGB", "INT_BGR", "3BYTE_BGR", "4BYTE_ABGR"})
+    public String type;
+
+    private BufferedImage image;
+
+    @Setup
+    public void setUp() {
+        int imageType;
+        switch (type) {
+            case "INT_ARGB":
+                imageType = BufferedImage.TYPE_INT_ARGB;
+                break;
+            case "INT_RGB":
+                imageType = BufferedImage.TYPE_INT_RGB;
+                break;
+            case "INT_BGR":
+                imageType = BufferedImage.TYPE_INT_BGR;
+                break;
+            case "3BYTE_BGR":
+                imageType = BufferedImage.TYPE_3BYTE_BGR;
+                break;
+            case "4BYTE_ABGR":
+                imageType = BufferedImage.TYPE_4BYTE_ABGR;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown image type: " + type);
+        }
+
+        image = new BufferedImage(2000, 1500, imageType);
+        Random random = new Random(42);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+    public byte[] vector() {
+        return WebPCodec.convertBufferedImageToBytes(image);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Ddev.matrixlab.webp4j.vector=false"})
+    public byte[] scalar() {
+        return WebPCodec.convertBufferedImageToBytes(image);
+    }
+}
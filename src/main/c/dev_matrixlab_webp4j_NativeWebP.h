@@ -23,6 +23,22 @@ JNIEXPORT jboolean JNICALL Java_dev_matrixlab_webp4j_NativeWebP_getInfo
 JNIEXPORT jint JNICALL Java_dev_matrixlab_webp4j_NativeWebP_getFeatures
   (JNIEnv *, jobject, jbyteArray, jint, jobject);
 
+/*
+ * Class:     dev_matrixlab_webp4j_NativeWebP
+ * Method:    getInfoSlice
+ * Signature: ([BII[I)Z
+ */
+JNIEXPORT jboolean JNICALL Java_dev_matrixlab_webp4j_NativeWebP_getInfoSlice
+  (JNIEnv *, jobject, jbyteArray, jint, jint, jintArray);
+
+/*
+ * Class:     dev_matrixlab_webp4j_NativeWebP
+ * Method:    getFeaturesSlice
+ * Signature: ([BIILdev/matrixlab/webp4j/WebPBitstreamFeatures;)I
+ */
+JNIEXPORT jint JNICALL Java_dev_matrixlab_webp4j_NativeWebP_getFeaturesSlice
+  (JNIEnv *, jobject, jbyteArray, jint, jint, jobject);
+
 /*
  * Class:     dev_matrixlab_webp4j_NativeWebP
  * Method:    encodeRGB
@@ -55,6 +71,14 @@ JNIEXPORT jbyteArray JNICALL Java_dev_matrixlab_webp4j_NativeWebP_encodeLossless
 JNIEXPORT jbyteArray JNICALL Java_dev_matrixlab_webp4j_NativeWebP_encodeLosslessRGBA
   (JNIEnv *, jobject, jbyteArray, jint, jint, jint);
 
+/*
+ * Class:     dev_matrixlab_webp4j_NativeWebP
+ * Method:    encodeToTargetSize
+ * Signature: ([BIIIZIFFII[F)[B
+ */
+JNIEXPORT jbyteArray JNICALL Java_dev_matrixlab_webp4j_NativeWebP_encodeToTargetSize
+  (JNIEnv *, jobject, jbyteArray, jint, jint, jint, jboolean, jint, jfloat, jfloat, jint, jint, jfloatArray);
+
 /*
  * Class:     dev_matrixlab_webp4j_NativeWebP
  * Method:    decodeRGBInto
@@ -71,6 +95,134 @@ JNIEXPORT jboolean JNICALL Java_dev_matrixlab_webp4j_NativeWebP_decodeRGBInto
 JNIEXPORT jboolean JNICALL Java_dev_matrixlab_webp4j_NativeWebP_decodeRGBAInto
   (JNIEnv *, jobject, jbyteArray, jbyteArray, jint);
 
+/*
+ * Class:     dev_matrixlab_webp4j_NativeWebP
+ * Method:    decodeRGBIntoSlice
+ * Signature: ([BII[BII)Z
+ */
+JNIEXPORT jboolean JNICALL Java_dev_matrixlab_webp4j_NativeWebP_decodeRGBIntoSlice
+  (JNIEnv *, jobject, jbyteArray, jint, jint, jbyteArray, jint, jint);
+
+/*
+ * Class:     dev_matrixlab_webp4j_NativeWebP
+ * Method:    decodeRGBAIntoSlice
+ * Signature: ([BII[BII)Z
+ */
+JNIEXPORT jboolean JNICALL Java_dev_matrixlab_webp4j_NativeWebP_decodeRGBAIntoSlice
+  (JNIEnv *, jobject, jbyteArray, jint, jint, jbyteArray, jint, jint);
+
+/*
+ * Class:     dev_matrixlab_webp4j_NativeWebP
+ * Method:    encodeYUV420
+ * Signature: ([B[B[BIIIIF)[B
+ */
+JNIEXPORT jbyteArray JNICALL Java_dev_matrixlab_webp4j_NativeWebP_encodeYUV420
+  (JNIEnv *, jobject, jbyteArray, jbyteArray, jbyteArray, jint, jint, jint, jint, jfloat);
+
+/*
+ * Class:     dev_matrixlab_webp4j_NativeWebP
+ * Method:    decodeYUVInto
+ * Signature: ([BII[BI[B[BI)Z
+ */
+JNIEXPORT jboolean JNICALL Java_dev_matrixlab_webp4j_NativeWebP_decodeYUVInto
+  (JNIEnv *, jobject, jbyteArray, jint, jint, jbyteArray, jint, jbyteArray, jbyteArray, jint);
+
+/*
+ * Class:     dev_matrixlab_webp4j_NativeWebP
+ * Method:    transcode
+ * Signature: ([BIIIIIIIIFZI)[B
+ */
+JNIEXPORT jbyteArray JNICALL Java_dev_matrixlab_webp4j_NativeWebP_transcode
+  (JNIEnv *, jobject, jbyteArray, jint, jint, jint, jint, jint, jint, jint, jint, jfloat, jboolean, jint);
+
+/*
+ * Class:     dev_matrixlab_webp4j_NativeWebP
+ * Method:    getChunk
+ * Signature: ([BIILjava/lang/String;)[B
+ */
+JNIEXPORT jbyteArray JNICALL Java_dev_matrixlab_webp4j_NativeWebP_getChunk
+  (JNIEnv *, jobject, jbyteArray, jint, jint, jstring);
+
+/*
+ * Class:     dev_matrixlab_webp4j_NativeWebP
+ * Method:    setChunk
+ * Signature: ([BIILjava/lang/String;[B)[B
+ */
+JNIEXPORT jbyteArray JNICALL Java_dev_matrixlab_webp4j_NativeWebP_setChunk
+  (JNIEnv *, jobject, jbyteArray, jint, jint, jstring, jbyteArray);
+
+/*
+ * Class:     dev_matrixlab_webp4j_NativeWebP
+ * Method:    deleteChunks
+ * Signature: ([BII[Ljava/lang/String;)[B
+ */
+JNIEXPORT jbyteArray JNICALL Java_dev_matrixlab_webp4j_NativeWebP_deleteChunks
+  (JNIEnv *, jobject, jbyteArray, jint, jint, jobjectArray);
+
+/*
+ * Class:     dev_matrixlab_webp4j_NativeWebP
+ * Method:    getBitstream
+ * Signature: ([BII)[B
+ */
+JNIEXPORT jbyteArray JNICALL Java_dev_matrixlab_webp4j_NativeWebP_getBitstream
+  (JNIEnv *, jobject, jbyteArray, jint, jint);
+
+/*
+ * Class:     dev_matrixlab_webp4j_NativeWebP
+ * Method:    createEncoderSession
+ * Signature: (FZI)J
+ */
+JNIEXPORT jlong JNICALL Java_dev_matrixlab_webp4j_NativeWebP_createEncoderSession
+  (JNIEnv *, jobject, jfloat, jboolean, jint);
+
+/*
+ * Class:     dev_matrixlab_webp4j_NativeWebP
+ * Method:    encodeSessionARGB
+ * Signature: (J[IIIIIZ)[B
+ */
+JNIEXPORT jbyteArray JNICALL Java_dev_matrixlab_webp4j_NativeWebP_encodeSessionARGB
+  (JNIEnv *, jobject, jlong, jintArray, jint, jint, jint, jint, jboolean);
+
+/*
+ * Class:     dev_matrixlab_webp4j_NativeWebP
+ * Method:    destroyEncoderSession
+ * Signature: (J)V
+ */
+JNIEXPORT void JNICALL Java_dev_matrixlab_webp4j_NativeWebP_destroyEncoderSession
+  (JNIEnv *, jobject, jlong);
+
+/*
+ * Class:     dev_matrixlab_webp4j_NativeWebP
+ * Method:    createDecoderSession
+ * Signature: ()J
+ */
+JNIEXPORT jlong JNICALL Java_dev_matrixlab_webp4j_NativeWebP_createDecoderSession
+  (JNIEnv *, jobject);
+
+/*
+ * Class:     dev_matrixlab_webp4j_NativeWebP
+ * Method:    decodeSessionFeatures
+ * Signature: (J[BIILdev/matrixlab/webp4j/WebPBitstreamFeatures;)I
+ */
+JNIEXPORT jint JNICALL Java_dev_matrixlab_webp4j_NativeWebP_decodeSessionFeatures
+  (JNIEnv *, jobject, jlong, jbyteArray, jint, jint, jobject);
+
+/*
+ * Class:     dev_matrixlab_webp4j_NativeWebP
+ * Method:    decodeSessionARGB
+ * Signature: (J[I)Z
+ */
+JNIEXPORT jboolean JNICALL Java_dev_matrixlab_webp4j_NativeWebP_decodeSessionARGB
+  (JNIEnv *, jobject, jlong, jintArray);
+
+/*
+ * Class:     dev_matrixlab_webp4j_NativeWebP
+ * Method:    destroyDecoderSession
+ * Signature: (J)V
+ */
+JNIEXPORT void JNICALL Java_dev_matrixlab_webp4j_NativeWebP_destroyDecoderSession
+  (JNIEnv *, jobject, jlong);
+
 #ifdef __cplusplus
 }
 #endif
@@ -1,7 +1,9 @@
 #include <jni.h>
 #include <stdlib.h>
+#include <string.h>
 #include <webp/encode.h>
 #include <webp/decode.h>
+#include <webp/mux.h>
 #include "dev_matrixlab_webp4j_NativeWebP.h"
 
 /*
@@ -37,6 +39,194 @@ void freeUint8(uint8_t* ptr) {
     }
 }
 
+/*
+ * Utility function to copy a native buffer into a new Java byte array.
+ * Returns NULL if the Java array could not be allocated.
+ */
+static jbyteArray uint8ToJByteArray(JNIEnv *env, const uint8_t* data, size_t size) {
+    jbyteArray result = (*env)->NewByteArray(env, (jsize)size);
+    if (result == NULL) {
+        return NULL;  // Memory allocation failed
+    }
+    (*env)->SetByteArrayRegion(env, result, 0, (jsize)size, (const jbyte*) data);
+    return result;
+}
+
+/*
+ * Utility function to check that offset and length describe a non-empty range of a Java array.
+ */
+static int isValidSlice(JNIEnv *env, jarray array, jint offset, jint length) {
+    return offset >= 0 && length > 0 && (jlong)offset + length <= (jlong)(*env)->GetArrayLength(env, array);
+}
+
+/*
+ * Utility function to copy a range of a Java byte array into a new native buffer.
+ * Only the range is copied, not the whole array. The caller must free the result.
+ * Returns NULL if the range is invalid or memory allocation failed.
+ */
+static uint8_t* copySlice(JNIEnv *env, jbyteArray array, jint offset, jint length) {
+    if (!isValidSlice(env, array, offset, length)) {
+        return NULL;  // Invalid range
+    }
+    uint8_t* result = (uint8_t*) malloc((size_t)length);
+    if (result == NULL) {
+        return NULL;  // Memory allocation failed
+    }
+    (*env)->GetByteArrayRegion(env, array, offset, length, (jbyte*) result);
+    return result;
+}
+
+/*
+ * Utility function to encode an imported WebPPicture with the given settings.
+ * The picture is always freed, whether encoding succeeds or not.
+ *
+ * Returns a Java byte array containing the encoded WebP image, or NULL on failure.
+ */
+static jbyteArray encodePicture(JNIEnv *env, WebPPicture* picture, float quality, int lossless, int method) {
+    WebPConfig config;
+    if (!WebPConfigInit(&config)) {
+        WebPPictureFree(picture);
+        return NULL;  // Version mismatch
+    }
+
+    config.quality = quality;
+    config.lossless = lossless;
+    config.method = method;
+    if (!WebPValidateConfig(&config)) {
+        WebPPictureFree(picture);
+        return NULL;  // Invalid quality or method
+    }
+
+    // Collect the output in memory
+    WebPMemoryWriter writer;
+    WebPMemoryWriterInit(&writer);
+    picture->writer = WebPMemoryWrite;
+    picture->custom_ptr = &writer;
+
+    int ok = WebPEncode(&config, picture);
+    WebPPictureFree(picture);
+
+    jbyteArray result = ok ? uint8ToJByteArray(env, writer.mem, writer.size) : NULL;
+    WebPMemoryWriterClear(&writer);
+    return result;
+}
+
+/*
+ * Utility function to read a four-character chunk id from a Java string.
+ * Returns 0 if the string is not exactly four characters long.
+ */
+static int jStringToFourCC(JNIEnv *env, jstring fourcc, char out[4]) {
+    if (fourcc == NULL || (*env)->GetStringUTFLength(env, fourcc) != 4) {
+        return 0;
+    }
+    const char* chars = (*env)->GetStringUTFChars(env, fourcc, NULL);
+    if (chars == NULL) {
+        return 0;
+    }
+    for (int i = 0; i < 4; i++) {
+        out[i] = chars[i];
+    }
+    (*env)->ReleaseStringUTFChars(env, fourcc, chars);
+    return 1;
+}
+
+/*
+ * Utility function to assemble a mux into a Java byte array.
+ * The mux is always deleted.
+ */
+static jbyteArray assembleMux(JNIEnv *env, WebPMux* mux) {
+    WebPData assembled;
+    WebPDataInit(&assembled);
+
+    WebPMuxError err = WebPMuxAssemble(mux, &assembled);
+    WebPMuxDelete(mux);
+
+    jbyteArray result = err == WEBP_MUX_OK ? uint8ToJByteArray(env, assembled.bytes, assembled.size) : NULL;
+    WebPDataClear(&assembled);
+    return result;
+}
+
+/*
+ * Field IDs of the Java WebPBitstreamFeatures class, looked up once when the library is loaded.
+ * The global class reference keeps the class (and therefore the IDs) alive.
+ */
+static jclass featuresClassRef = NULL;
+static jfieldID fidWidth = NULL;
+static jfieldID fidHeight = NULL;
+static jfieldID fidHasAlpha = NULL;
+static jfieldID fidHasAnimation = NULL;
+static jfieldID fidFormat = NULL;
+
+/*
+ * Looks up and caches the WebPBitstreamFeatures field IDs.
+ * Returns 1 on success, 0 if a field is missing.
+ */
+static int cacheFeaturesFieldIDs(JNIEnv *env, jclass featuresClass) {
+    jfieldID width        = (*env)->GetFieldID(env, featuresClass, "width", "I");
+    jfieldID height       = (*env)->GetFieldID(env, featuresClass, "height", "I");
+    jfieldID hasAlpha     = (*env)->GetFieldID(env, featuresClass, "hasAlpha", "Z");
+    jfieldID hasAnimation = (*env)->GetFieldID(env, featuresClass, "hasAnimation", "Z");
+    jfieldID format       = (*env)->GetFieldID(env, featuresClass, "format", "I");
+    if (width == NULL || height == NULL || hasAlpha == NULL || hasAnimation == NULL || format == NULL) {
+        return 0;
+    }
+
+    jclass ref = (jclass)(*env)->NewGlobalRef(env, featuresClass);
+    if (ref == NULL) {
+        return 0;
+    }
+    featuresClassRef = ref;
+    fidWidth = width;
+    fidHeight = height;
+    fidHasAlpha = hasAlpha;
+    fidHasAnimation = hasAnimation;
+    fidFormat = format;
+    return 1;
+}
+
+/*
+ * Writes the C bitstream features into a Java WebPBitstreamFeatures object,
+ * using the cached field IDs (looked up on first use if the cache is empty).
+ */
+static void setFeaturesFields(JNIEnv *env, jobject featuresObj, const WebPBitstreamFeatures* features) {
+    if (featuresClassRef == NULL) {
+        jclass featuresClass = (*env)->GetObjectClass(env, featuresObj);
+        if (featuresClass == NULL || !cacheFeaturesFieldIDs(env, featuresClass)) {
+            return;
+        }
+    }
+
+    (*env)->SetIntField(env, featuresObj, fidWidth, features->width);
+    (*env)->SetIntField(env, featuresObj, fidHeight, features->height);
+    (*env)->SetBooleanField(env, featuresObj, fidHasAlpha, features->has_alpha ? JNI_TRUE : JNI_FALSE);
+    (*env)->SetBooleanField(env, featuresObj, fidHasAnimation, features->has_animation ? JNI_TRUE : JNI_FALSE);
+    (*env)->SetIntField(env, featuresObj, fidFormat, features->format);
+}
+
+/*
+ * Called by the JVM when the library is loaded; caches the JNI lookups that would
+ * otherwise be repeated on every call.
+ */
+JNIEXPORT jint JNICALL JNI_OnLoad(JavaVM *vm, void *reserved) {
+    JNIEnv *env;
+    if ((*vm)->GetEnv(vm, (void**)&env, JNI_VERSION_1_6) != JNI_OK) {
+        return JNI_ERR;
+    }
+
+    jclass featuresClass = (*env)->FindClass(env, "dev/matrixlab/webp4j/WebPBitstreamFeatures");
+    if (featuresClass == NULL) {
+        // Not fatal, the IDs are looked up on first use instead
+        (*env)->ExceptionClear(env);
+    } else {
+        if (!cacheFeaturesFieldIDs(env, featuresClass)) {
+            (*env)->ExceptionClear(env);
+        }
+        (*env)->DeleteLocalRef(env, featuresClass);
+    }
+
+    return JNI_VERSION_1_6;
+}
+
 /*
  * Class:     NativeWebP
  * Method:    getInfo
@@ -126,7 +316,8 @@ JNIEXPORT jboolean JNICALL Java_dev_matrixlab_webp4j_NativeWebP_getInfo
  * The function performs the following steps:
  * 1. Retrieves the WebP image data from the input Java byte array.
  * 2. Calls the WebPGetFeatures function to extract the bitstream features.
- * 3. Maps the extracted features to the fields of the Java WebPBitstreamFeatures object.
+ * 3. Maps the extracted features to the fields of the Java WebPBitstreamFeatures object
+ *    (the field IDs are cached when the library is loaded).
  * 4. Releases the input byte array.
  *
  * Returns:
@@ -155,35 +346,105 @@ JNIEXPORT jint JNICALL Java_dev_matrixlab_webp4j_NativeWebP_getFeatures
         return status;
     }
 
-    // Obtain the Java class of the features object.
-    jclass featuresClass = (*env)->GetObjectClass(env, featuresObj);
-    if (featuresClass == NULL) {
-        return status;
+    // Write the values from the C structure into the Java object's fields.
+    setFeaturesFields(env, featuresObj, &cFeatures);
+
+    // Return the status code from WebPGetFeatures.
+    return status;
+}
+
+/*
+ * Class:     NativeWebP
+ * Method:    getInfoSlice
+ * Signature: ([BII[I)Z
+ *
+ * This JNI function retrieves the width and height of a WebP image stored in a range of a byte array,
+ * e.g. a payload inside a larger network buffer.
+ *
+ * Parameters:
+ * - data: A Java byte array containing the WebP image data.
+ * - offset: The index of the first byte of the image in the array.
+ * - length: The size of the image data in bytes.
+ * - dimensions: A Java integer array to store the width and height of the image.
+ *
+ * The function performs the following steps:
+ * 1. Accesses the array directly (WebPGetFeatures only parses headers, so this is short).
+ * 2. Calls the WebPGetFeatures function on the range to extract the image dimensions.
+ * 3. Stores the width and height in the provided Java integer array.
+ *
+ * Returns:
+ * - true (JNI_TRUE) if the operation is successful.
+ * - false (JNI_FALSE) if the range is invalid or the operation fails.
+ */
+JNIEXPORT jboolean JNICALL Java_dev_matrixlab_webp4j_NativeWebP_getInfoSlice
+  (JNIEnv *env, jobject obj, jbyteArray data, jint offset, jint length, jintArray dimensions) {
+
+    if (!isValidSlice(env, data, offset, length) || (*env)->GetArrayLength(env, dimensions) < 2) {
+        return JNI_FALSE;  // Invalid range
+    }
+
+    jbyte* webp_data = (jbyte*)(*env)->GetPrimitiveArrayCritical(env, data, NULL);
+    if (webp_data == NULL) {
+        return JNI_FALSE;  // Failed to access byte array
     }
 
-    // Get the field IDs for the expected fields in the Java WebPBitstreamFeatures class.
-    // Assuming the Java class defines the fields: int width, int height, boolean hasAlpha,
-    // boolean hasAnimation, and int format.
-    jfieldID fidWidth       = (*env)->GetFieldID(env, featuresClass, "width", "I");
-    jfieldID fidHeight      = (*env)->GetFieldID(env, featuresClass, "height", "I");
-    jfieldID fidHasAlpha    = (*env)->GetFieldID(env, featuresClass, "hasAlpha", "Z");
-    jfieldID fidHasAnimation= (*env)->GetFieldID(env, featuresClass, "hasAnimation", "Z");
-    jfieldID fidFormat      = (*env)->GetFieldID(env, featuresClass, "format", "I");
+    WebPBitstreamFeatures features;
+    VP8StatusCode status = WebPGetFeatures((const uint8_t*)(webp_data + offset), (size_t)length, &features);
 
-    // Check that all field IDs are successfully obtained.
-    if (fidWidth == NULL || fidHeight == NULL || fidHasAlpha == NULL || fidHasAnimation == NULL || fidFormat == NULL) {
-        // Optionally, we can throw an exception here.
-        return status;
+    // No JNI calls are allowed while the array is held
+    (*env)->ReleasePrimitiveArrayCritical(env, data, webp_data, JNI_ABORT);
+
+    if (status != VP8_STATUS_OK) {
+        return JNI_FALSE;  // Failed to get WebP features
     }
 
-    // Write the values from the C structure into the Java object's fields.
-    (*env)->SetIntField(env, featuresObj, fidWidth, cFeatures.width);
-    (*env)->SetIntField(env, featuresObj, fidHeight, cFeatures.height);
-    (*env)->SetBooleanField(env, featuresObj, fidHasAlpha, cFeatures.has_alpha ? JNI_TRUE : JNI_FALSE);
-    (*env)->SetBooleanField(env, featuresObj, fidHasAnimation, cFeatures.has_animation ? JNI_TRUE : JNI_FALSE);
-    (*env)->SetIntField(env, featuresObj, fidFormat, cFeatures.format);
+    jint dims[2] = { features.width, features.height };
+    (*env)->SetIntArrayRegion(env, dimensions, 0, 2, dims);
 
-    // Return the status code from WebPGetFeatures.
+    return JNI_TRUE;  // Success
+}
+
+/*
+ * Class:     NativeWebP
+ * Method:    getFeaturesSlice
+ * Signature: ([BIILdev/matrixlab/webp4j/WebPBitstreamFeatures;)I
+ *
+ * This JNI function wraps the libwebp function WebPGetFeatures for a WebP image stored
+ * in a range of a byte array.
+ *
+ * Parameters:
+ * - data: A Java byte array containing the WebP image data.
+ * - offset: The index of the first byte of the image in the array.
+ * - length: The size of the image data in bytes.
+ * - featuresObj: A Java object of type WebPBitstreamFeatures to store the extracted features.
+ *
+ * Returns:
+ * - VP8_STATUS_OK (0) if the operation is successful.
+ * - A non-zero error code if the operation fails.
+ */
+JNIEXPORT jint JNICALL Java_dev_matrixlab_webp4j_NativeWebP_getFeaturesSlice
+  (JNIEnv *env, jobject obj, jbyteArray data, jint offset, jint length, jobject featuresObj) {
+
+    if (!isValidSlice(env, data, offset, length)) {
+        return VP8_STATUS_INVALID_PARAM;  // Invalid range
+    }
+
+    jbyte* webpData = (jbyte*)(*env)->GetPrimitiveArrayCritical(env, data, NULL);
+    if (webpData == NULL) {
+        return -1;  // Failed to access byte array
+    }
+
+    WebPBitstreamFeatures cFeatures;
+    int status = WebPGetFeatures((const uint8_t*)(webpData + offset), (size_t)length, &cFeatures);
+
+    // No JNI calls are allowed while the array is held
+    (*env)->ReleasePrimitiveArrayCritical(env, data, webpData, JNI_ABORT);
+
+    if (status != VP8_STATUS_OK) {
+        return status;
+    }
+
+    setFeaturesFields(env, featuresObj, &cFeatures);
     return status;
 }
 
@@ -578,3 +839,1077 @@ JNIEXPORT jboolean JNICALL Java_dev_matrixlab_webp4j_NativeWebP_decodeRGBAInto
     return JNI_TRUE;
 }
 
+/*
+ * Utility function shared by decodeRGBIntoSlice and decodeRGBAIntoSlice.
+ * Both arrays are accessed directly and libwebp decodes straight into the output array,
+ * so neither the input range nor the pixels are copied. Only the pixel rows are written,
+ * the rest of the output array (including any row padding) is left untouched.
+ */
+static jboolean decodeSliceInto(JNIEnv *env, jbyteArray data, jint offset, jint length,
+                                jbyteArray outputBuffer, jint outputOffset, jint outputStride, int bytes_per_pixel) {
+
+    jsize output_buffer_size = (*env)->GetArrayLength(env, outputBuffer);
+    // A negative stride would make libwebp write rows before outputOffset
+    if (!isValidSlice(env, data, offset, length)
+            || outputOffset < 0 || outputOffset > output_buffer_size || outputStride <= 0) {
+        return JNI_FALSE;  // Invalid range
+    }
+
+    jbyte* webp_data = (jbyte*)(*env)->GetPrimitiveArrayCritical(env, data, NULL);
+    if (webp_data == NULL) {
+        return JNI_FALSE;  // Failed to access byte array
+    }
+    jbyte* output_buffer = (jbyte*)(*env)->GetPrimitiveArrayCritical(env, outputBuffer, NULL);
+    if (output_buffer == NULL) {
+        (*env)->ReleasePrimitiveArrayCritical(env, data, webp_data, JNI_ABORT);
+        return JNI_FALSE;  // Failed to access byte array
+    }
+
+    // libwebp checks that the rows fit into the output array after outputOffset
+    const uint8_t* input = (const uint8_t*)(webp_data + offset);
+    uint8_t* output = (uint8_t*)(output_buffer + outputOffset);
+    size_t output_size = (size_t)(output_buffer_size - outputOffset);
+    uint8_t* result = bytes_per_pixel == 4
+            ? WebPDecodeRGBAInto(input, (size_t)length, output, output_size, outputStride)
+            : WebPDecodeRGBInto(input, (size_t)length, output, output_size, outputStride);
+
+    // No JNI calls are allowed while the arrays are held; only the output is written back
+    (*env)->ReleasePrimitiveArrayCritical(env, outputBuffer, output_buffer, 0);
+    (*env)->ReleasePrimitiveArrayCritical(env, data, webp_data, JNI_ABORT);
+
+    return result != NULL ? JNI_TRUE : JNI_FALSE;
+}
+
+/*
+ * Class:     NativeWebP
+ * Method:    decodeRGBIntoSlice
+ * Signature: ([BII[BII)Z
+ *
+ * This JNI function decodes a WebP image stored in a range of a byte array into an RGB format,
+ * writing the rows into a range of the output array.
+ *
+ * Parameters:
+ * - data: A Java byte array containing the WebP image data.
+ * - offset: The index of the first byte of the image in the array.
+ * - length: The size of the image data in bytes.
+ * - outputBuffer: A Java byte array to store the decoded RGB image.
+ * - outputOffset: The index in the output array where the first row starts.
+ * - outputStride: The number of bytes per row in the output buffer.
+ *
+ * Returns:
+ * - true (JNI_TRUE) if decoding is successful.
+ * - false (JNI_FALSE) if a range is invalid or decoding fails.
+ */
+JNIEXPORT jboolean JNICALL Java_dev_matrixlab_webp4j_NativeWebP_decodeRGBIntoSlice
+  (JNIEnv *env, jobject obj, jbyteArray data, jint offset, jint length,
+   jbyteArray outputBuffer, jint outputOffset, jint outputStride) {
+    return decodeSliceInto(env, data, offset, length, outputBuffer, outputOffset, outputStride, 3);
+}
+
+/*
+ * Class:     NativeWebP
+ * Method:    decodeRGBAIntoSlice
+ * Signature: ([BII[BII)Z
+ *
+ * This JNI function decodes a WebP image stored in a range of a byte array into an RGBA format,
+ * writing the rows into a range of the output array.
+ *
+ * Parameters:
+ * - data: A Java byte array containing the WebP image data.
+ * - offset: The index of the first byte of the image in the array.
+ * - length: The size of the image data in bytes.
+ * - outputBuffer: A Java byte array to store the decoded RGBA image.
+ * - outputOffset: The index in the output array where the first row starts.
+ * - outputStride: The number of bytes per row in the output buffer.
+ *
+ * Returns:
+ * - true (JNI_TRUE) if decoding is successful.
+ * - false (JNI_FALSE) if a range is invalid or decoding fails.
+ */
+JNIEXPORT jboolean JNICALL Java_dev_matrixlab_webp4j_NativeWebP_decodeRGBAIntoSlice
+  (JNIEnv *env, jobject obj, jbyteArray data, jint offset, jint length,
+   jbyteArray outputBuffer, jint outputOffset, jint outputStride) {
+    return decodeSliceInto(env, data, offset, length, outputBuffer, outputOffset, outputStride, 4);
+}
+
+/*
+ * Utility function to encode a picture once more into a reused memory writer.
+ * Returns the encoded size, or 0 if encoding failed.
+ */
+static size_t encodePass(WebPConfig* config, WebPPicture* picture, WebPMemoryWriter* writer, float quality) {
+    config->quality = quality;
+    writer->size = 0;  // Keep the memory of the previous pass
+    picture->writer = WebPMemoryWrite;
+    picture->custom_ptr = writer;
+    return WebPEncode(config, picture) ? writer->size : 0;
+}
+
+/*
+ * Class:     NativeWebP
+ * Method:    encodeToTargetSize
+ * Signature: ([BIIIZIFFII[F)[B
+ *
+ * This JNI function encodes RGB/RGBA pixels lossily at the highest quality whose output fits into maxBytes.
+ * The pixels are imported into a YUV WebPPicture once; every pass of the quality search re-encodes
+ * that picture into one of two reused memory writers.
+ *
+ * Parameters:
+ * - image: A Java byte array containing the RGB or RGBA image data.
+ * - width: The width of the image in pixels.
+ * - height: The height of the image in pixels.
+ * - stride: The number of bytes per row in the image data.
+ * - hasAlpha: Whether the image data is RGBA (true) or RGB (false).
+ * - maxBytes: The maximum size of the encoded image in bytes.
+ * - minQuality, maxQuality: The quality range to search (0 to 100).
+ * - maxPasses: The maximum number of encoding passes.
+ * - method: The compression method (0 = fast, 6 = slower but better).
+ * - stats: A Java float array receiving the chosen quality and the number of passes.
+ *
+ * The function performs the following steps:
+ * 1. Imports the pixels into a WebPPicture and releases the Java array.
+ * 2. Encodes at maxQuality; if the output fits, the search ends.
+ * 3. Encodes at minQuality; if the output does not fit, the search ends.
+ * 4. Bisects the quality range until the passes are used up or the range is narrower than 1.
+ * 5. Returns the output of the highest quality that fit, or the smallest output if none fit.
+ *
+ * Returns:
+ * - A Java byte array containing the encoded WebP image, or NULL if encoding fails.
+ */
+JNIEXPORT jbyteArray JNICALL Java_dev_matrixlab_webp4j_NativeWebP_encodeToTargetSize
+  (JNIEnv *env, jobject obj, jbyteArray image, jint width, jint height, jint stride, jboolean hasAlpha,
+   jint maxBytes, jfloat minQuality, jfloat maxQuality, jint maxPasses, jint method, jfloatArray stats) {
+
+    WebPConfig config;
+    WebPPicture picture;
+    if (!WebPConfigInit(&config) || !WebPPictureInit(&picture)) {
+        return NULL;  // Version mismatch
+    }
+
+    config.method = method;
+    config.quality = maxQuality;
+    if (!WebPValidateConfig(&config) || maxPasses <= 0 || minQuality > maxQuality) {
+        return NULL;  // Invalid settings
+    }
+
+    jbyte* image_data = (*env)->GetByteArrayElements(env, image, NULL);
+    if (image_data == NULL) {
+        return NULL;  // Failed to get image data
+    }
+
+    // Import once, every pass encodes the same YUV picture
+    picture.use_argb = 0;
+    picture.width = width;
+    picture.height = height;
+    int imported = hasAlpha
+            ? WebPPictureImportRGBA(&picture, (const uint8_t*)image_data, stride)
+            : WebPPictureImportRGB(&picture, (const uint8_t*)image_data, stride);
+
+    (*env)->ReleaseByteArrayElements(env, image, image_data, JNI_ABORT);
+
+    if (!imported) {
+        WebPPictureFree(&picture);
+        return NULL;  // Import failed
+    }
+
+    // 'kept' holds the best output so far, 'scratch' the current pass; they are swapped, never copied
+    WebPMemoryWriter writers[2];
+    WebPMemoryWriterInit(&writers[0]);
+    WebPMemoryWriterInit(&writers[1]);
+    WebPMemoryWriter* kept = &writers[0];
+    WebPMemoryWriter* scratch = &writers[1];
+    int kept_fits = 0;
+    float kept_quality = -1.0f;
+
+    float low = minQuality;   // Highest quality known to fit
+    float high = maxQuality;  // Lowest quality known not to fit
+    int passes = 0;
+    int failed = 0;
+
+    while (passes < maxPasses) {
+        float quality;
+        if (passes == 0) {
+            quality = maxQuality;
+        } else if (passes == 1) {
+            quality = minQuality;
+        } else if (high - low >= 1.0f) {
+            quality = (low + high) / 2;
+        } else {
+            break;  // Range is exhausted
+        }
+
+        size_t size = encodePass(&config, &picture, scratch, quality);
+        passes++;
+        if (size == 0) {
+            failed = 1;
+            break;  // Encoding failed
+        }
+
+        int fits = size <= (size_t)maxBytes;
+        if (fits) {
+            low = quality;
+        } else {
+            high = quality;
+        }
+
+        // Keep the highest quality that fits, or the smallest output while nothing fits
+        if ((fits && (!kept_fits || quality > kept_quality))
+                || (!fits && !kept_fits && (kept_quality < 0 || size < kept->size))) {
+            WebPMemoryWriter* swap = kept;
+            kept = scratch;
+            scratch = swap;
+            kept_fits = fits;
+            kept_quality = quality;
+        }
+
+        if ((passes == 1 && fits) || (passes == 2 && !fits) || minQuality == maxQuality) {
+            break;  // Best or smallest possible output reached
+        }
+    }
+
+    WebPPictureFree(&picture);
+
+    jbyteArray result = NULL;
+    if (!failed && kept_quality >= 0) {
+        jfloat values[2] = { kept_quality, (jfloat)passes };
+        (*env)->SetFloatArrayRegion(env, stats, 0, 2, values);
+        result = uint8ToJByteArray(env, kept->mem, kept->size);
+    }
+
+    WebPMemoryWriterClear(&writers[0]);
+    WebPMemoryWriterClear(&writers[1]);
+    return result;
+}
+
+/*
+ * Class:     NativeWebP
+ * Method:    encodeYUV420
+ * Signature: ([B[B[BIIIIF)[B
+ *
+ * This JNI function encodes YUV420 planes (e.g. frames from a video decoder) into the lossy WebP format.
+ * The planes are copied straight into a YUV WebPPicture (use_argb = 0), so libwebp performs no
+ * colorspace conversion.
+ *
+ * Parameters:
+ * - y: A Java byte array containing the luma plane.
+ * - u: A Java byte array containing the U (Cb) plane, subsampled 2x2.
+ * - v: A Java byte array containing the V (Cr) plane, subsampled 2x2.
+ * - width: The width of the image in pixels.
+ * - height: The height of the image in pixels.
+ * - yStride: The number of bytes per row in the luma plane.
+ * - uvStride: The number of bytes per row in the U and V planes.
+ * - quality: A float value representing the quality factor for encoding (0 to 100).
+ *
+ * The function performs the following steps:
+ * 1. Allocates a YUV420 WebPPicture of the given size.
+ * 2. Copies each plane row by row from the Java arrays into the picture.
+ * 3. Encodes the picture and returns the encoded WebP data.
+ *
+ * Returns:
+ * - A Java byte array containing the encoded WebP image, or NULL if encoding fails.
+ */
+JNIEXPORT jbyteArray JNICALL Java_dev_matrixlab_webp4j_NativeWebP_encodeYUV420
+  (JNIEnv *env, jobject obj, jbyteArray y, jbyteArray u, jbyteArray v, jint width, jint height,
+   jint yStride, jint uvStride, jfloat quality) {
+
+    int uv_width = (width + 1) / 2;
+    int uv_height = (height + 1) / 2;
+
+    if (width <= 0 || height <= 0 || yStride < width || uvStride < uv_width) {
+        return NULL;  // Invalid dimensions
+    }
+
+    // Make sure every row can be read from the Java arrays
+    if ((*env)->GetArrayLength(env, y) < (jlong)yStride * (height - 1) + width
+            || (*env)->GetArrayLength(env, u) < (jlong)uvStride * (uv_height - 1) + uv_width
+            || (*env)->GetArrayLength(env, v) < (jlong)uvStride * (uv_height - 1) + uv_width) {
+        return NULL;  // Planes are too small
+    }
+
+    WebPPicture picture;
+    if (!WebPPictureInit(&picture)) {
+        return NULL;  // Version mismatch
+    }
+    picture.use_argb = 0;
+    picture.colorspace = WEBP_YUV420;
+    picture.width = width;
+    picture.height = height;
+    if (!WebPPictureAlloc(&picture)) {
+        return NULL;  // Memory allocation failed
+    }
+
+    // Copy the planes row by row, the picture strides may differ from the Java strides
+    for (int row = 0; row < height; row++) {
+        (*env)->GetByteArrayRegion(env, y, row * yStride, width, (jbyte*)(picture.y + row * picture.y_stride));
+    }
+    for (int row = 0; row < uv_height; row++) {
+        (*env)->GetByteArrayRegion(env, u, row * uvStride, uv_width, (jbyte*)(picture.u + row * picture.uv_stride));
+        (*env)->GetByteArrayRegion(env, v, row * uvStride, uv_width, (jbyte*)(picture.v + row * picture.uv_stride));
+    }
+
+    return encodePicture(env, &picture, quality, 0, 4);
+}
+
+/*
+ * Class:     NativeWebP
+ * Method:    decodeYUVInto
+ * Signature: ([BII[BI[B[BI)Z
+ *
+ * This JNI function wraps the libwebp function WebPDecodeYUVInto.
+ * It decodes a WebP image stored in a range of a byte array into caller-provided
+ * Y, U and V planes (YUV420, MODE_YUV) without converting to RGB.
+ * All arrays are accessed directly, so neither the input range nor the planes are copied.
+ *
+ * Parameters:
+ * - data: A Java byte array containing the WebP image data.
+ * - offset: The index of the first byte of the image in the array.
+ * - length: The size of the image data in bytes.
+ * - y: A Java byte array to store the luma plane.
+ * - yStride: The number of bytes per row in the luma plane.
+ * - u: A Java byte array to store the U plane.
+ * - v: A Java byte array to store the V plane.
+ * - uvStride: The number of bytes per row in the U and V planes.
+ *
+ * Returns:
+ * - true (JNI_TRUE) if decoding is successful.
+ * - false (JNI_FALSE) if the range is invalid or decoding fails.
+ */
+JNIEXPORT jboolean JNICALL Java_dev_matrixlab_webp4j_NativeWebP_decodeYUVInto
+  (JNIEnv *env, jobject obj, jbyteArray data, jint offset, jint length,
+   jbyteArray y, jint yStride, jbyteArray u, jbyteArray v, jint uvStride) {
+
+    // A negative stride would make libwebp write rows before the start of a plane
+    if (!isValidSlice(env, data, offset, length) || yStride <= 0 || uvStride <= 0) {
+        return JNI_FALSE;  // Invalid range
+    }
+
+    jsize y_size = (*env)->GetArrayLength(env, y);
+    jsize u_size = (*env)->GetArrayLength(env, u);
+    jsize v_size = (*env)->GetArrayLength(env, v);
+
+    jbyte* webp_data = (jbyte*)(*env)->GetPrimitiveArrayCritical(env, data, NULL);
+    jbyte* y_buffer = webp_data != NULL ? (jbyte*)(*env)->GetPrimitiveArrayCritical(env, y, NULL) : NULL;
+    jbyte* u_buffer = y_buffer != NULL ? (jbyte*)(*env)->GetPrimitiveArrayCritical(env, u, NULL) : NULL;
+    jbyte* v_buffer = u_buffer != NULL ? (jbyte*)(*env)->GetPrimitiveArrayCritical(env, v, NULL) : NULL;
+
+    uint8_t* result = NULL;
+    if (v_buffer != NULL) {
+        result = WebPDecodeYUVInto(
+            (const uint8_t*)(webp_data + offset), (size_t)length,
+            (uint8_t*)y_buffer, (size_t)y_size, (int)yStride,
+            (uint8_t*)u_buffer, (size_t)u_size, (int)uvStride,
+            (uint8_t*)v_buffer, (size_t)v_size, (int)uvStride
+        );
+    }
+
+    // No JNI calls are allowed while the arrays are held; release the planes, then the input data
+    if (v_buffer != NULL) {
+        (*env)->ReleasePrimitiveArrayCritical(env, v, v_buffer, 0);
+    }
+    if (u_buffer != NULL) {
+        (*env)->ReleasePrimitiveArrayCritical(env, u, u_buffer, 0);
+    }
+    if (y_buffer != NULL) {
+        (*env)->ReleasePrimitiveArrayCritical(env, y, y_buffer, 0);
+    }
+    if (webp_data != NULL) {
+        (*env)->ReleasePrimitiveArrayCritical(env, data, webp_data, JNI_ABORT);
+    }
+
+    return result != NULL ? JNI_TRUE : JNI_FALSE;
+}
+
+/*
+ * Utility function for transcode: decodes, optionally crops and scales,
+ * and re-encodes the WebP image in the given native buffer.
+ *
+ * Returns a Java byte array containing the encoded WebP image, or NULL if any step fails.
+ */
+static jbyteArray transcodeData(JNIEnv *env, const uint8_t* webp_data, size_t data_size,
+                                jint cropX, jint cropY, jint cropWidth, jint cropHeight,
+                                jint scaledWidth, jint scaledHeight, jfloat quality, jboolean lossless, jint method) {
+
+    WebPDecoderConfig config;
+    if (!WebPInitDecoderConfig(&config)) {
+        return NULL;  // Version mismatch
+    }
+
+    if (WebPGetFeatures(webp_data, data_size, &config.input) != VP8_STATUS_OK) {
+        return NULL;  // Not a valid WebP image
+    }
+
+    // Size of the area that will be decoded
+    int source_width = config.input.width;
+    int source_height = config.input.height;
+
+    // libwebp rounds the crop origin down to even values, so an odd origin is cropped after decoding:
+    // the decoder crops the enclosing even-aligned area and the picture is imported from one pixel in
+    int shift_x = 0;
+    int shift_y = 0;
+
+    if (cropWidth > 0 && cropHeight > 0) {
+        // Summed in 64 bits, so that a huge offset cannot overflow past the check
+        if (cropX < 0 || cropY < 0
+                || (int64_t) cropX + cropWidth > source_width || (int64_t) cropY + cropHeight > source_height) {
+            return NULL;  // Crop area is outside the image
+        }
+        shift_x = cropX & 1;
+        shift_y = cropY & 1;
+        config.options.use_cropping = 1;
+        config.options.crop_left = cropX - shift_x;
+        config.options.crop_top = cropY - shift_y;
+        config.options.crop_width = cropWidth + shift_x;
+        config.options.crop_height = cropHeight + shift_y;
+        source_width = cropWidth;
+        source_height = cropHeight;
+    }
+
+    int rescale = 0;
+    if (scaledWidth > 0 || scaledHeight > 0) {
+        // Derive the missing dimension from the aspect ratio of the decoded area
+        if (scaledWidth <= 0) {
+            scaledWidth = (jint)(((int64_t)source_width * scaledHeight + source_height / 2) / source_height);
+        } else if (scaledHeight <= 0) {
+            scaledHeight = (jint)(((int64_t)source_height * scaledWidth + source_width / 2) / source_width);
+        }
+        scaledWidth = scaledWidth > 0 ? scaledWidth : 1;
+        scaledHeight = scaledHeight > 0 ? scaledHeight : 1;
+        if (shift_x || shift_y) {
+            rescale = 1;  // The decoder would scale the shifted area, scale the picture instead
+        } else {
+            config.options.use_scaling = 1;
+            config.options.scaled_width = scaledWidth;
+            config.options.scaled_height = scaledHeight;
+        }
+    }
+
+    int has_alpha = config.input.has_alpha;
+    config.output.colorspace = has_alpha ? MODE_RGBA : MODE_RGB;
+
+    // Decode (with crop and scale) into a buffer owned by libwebp
+    VP8StatusCode status = WebPDecode(webp_data, data_size, &config);
+
+    if (status != VP8_STATUS_OK) {
+        WebPFreeDecBuffer(&config.output);
+        return NULL;  // Decoding failed
+    }
+
+    // Import the decoded pixels; lossy encoding works on YUV, lossless on ARGB
+    WebPPicture picture;
+    if (!WebPPictureInit(&picture)) {
+        WebPFreeDecBuffer(&config.output);
+        return NULL;  // Version mismatch
+    }
+    picture.use_argb = lossless ? 1 : 0;
+    picture.width = config.output.width - shift_x;
+    picture.height = config.output.height - shift_y;
+
+    const WebPRGBABuffer* rgba = &config.output.u.RGBA;
+    const uint8_t* pixels = rgba->rgba + (size_t)shift_y * rgba->stride + (size_t)shift_x * (has_alpha ? 4 : 3);
+    int imported = has_alpha
+            ? WebPPictureImportRGBA(&picture, pixels, rgba->stride)
+            : WebPPictureImportRGB(&picture, pixels, rgba->stride);
+
+    // The decoded buffer is no longer needed once the picture owns a copy
+    WebPFreeDecBuffer(&config.output);
+
+    if (!imported || (rescale && !WebPPictureRescale(&picture, scaledWidth, scaledHeight))) {
+        WebPPictureFree(&picture);
+        return NULL;  // Import or scaling failed
+    }
+
+    return encodePicture(env, &picture, quality, lossless ? 1 : 0, method);
+}
+
+/*
+ * Class:     NativeWebP
+ * Method:    transcode
+ * Signature: ([BIIIIIIIIFZI)[B
+ *
+ * This JNI function decodes, optionally crops and scales, and re-encodes a WebP image stored
+ * in a range of a byte array entirely in native memory. Only the range is copied to native memory,
+ * and only the final encoded bytes are copied back to Java.
+ *
+ * Parameters:
+ * - data: A Java byte array containing the source WebP image data.
+ * - offset: The index of the first byte of the image in the array.
+ * - length: The size of the image data in bytes.
+ * - cropX, cropY: The top-left corner of the crop area in source pixels.
+ * - cropWidth, cropHeight: The size of the crop area, or 0 to keep the whole image.
+ * - scaledWidth, scaledHeight: The output size, or 0 to derive it from the aspect ratio.
+ *   If both are 0, the (cropped) image is not scaled.
+ * - quality: A float value representing the quality factor for encoding (0 to 100).
+ * - lossless: Whether the output should be encoded losslessly.
+ * - method: The compression method (0 = fast, 6 = slower but better).
+ *
+ * The function performs the following steps:
+ * 1. Reads the bitstream features and configures the libwebp decoder with cropping/scaling.
+ * 2. Decodes the image into a native RGB/RGBA buffer (the decoder applies crop and scale).
+ * 3. Imports the decoded pixels into a WebPPicture (YUV for lossy, ARGB for lossless).
+ *    An odd crop origin is applied here instead, followed by WebPPictureRescale.
+ * 4. Encodes the picture into a memory writer and copies the result into a Java byte array.
+ *
+ * Returns:
+ * - A Java byte array containing the encoded WebP image, or NULL if the range is invalid or any step fails.
+ */
+JNIEXPORT jbyteArray JNICALL Java_dev_matrixlab_webp4j_NativeWebP_transcode
+  (JNIEnv *env, jobject obj, jbyteArray data, jint offset, jint length,
+   jint cropX, jint cropY, jint cropWidth, jint cropHeight,
+   jint scaledWidth, jint scaledHeight, jfloat quality, jboolean lossless, jint method) {
+
+    uint8_t* webp_data = copySlice(env, data, offset, length);
+    if (webp_data == NULL) {
+        return NULL;  // Invalid range or memory allocation failed
+    }
+
+    jbyteArray result = transcodeData(env, webp_data, (size_t)length,
+                                      cropX, cropY, cropWidth, cropHeight,
+                                      scaledWidth, scaledHeight, quality, lossless, method);
+
+    free(webp_data);
+    return result;
+}
+
+/*
+ * Class:     NativeWebP
+ * Method:    getChunk
+ * Signature: ([BIILjava/lang/String;)[B
+ *
+ * This JNI function wraps the libwebp function WebPMuxGetChunk.
+ * It returns the payload of a metadata chunk (e.g. "EXIF", "ICCP" or "XMP ") without decoding any pixels.
+ *
+ * Parameters:
+ * - data: A Java byte array containing the WebP file.
+ * - offset: The index of the first byte of the file in the array.
+ * - length: The size of the file in bytes.
+ * - fourcc: The four-character id of the chunk.
+ *
+ * Returns:
+ * - A Java byte array containing the chunk payload, or NULL if the chunk is absent or the data is invalid.
+ */
+JNIEXPORT jbyteArray JNICALL Java_dev_matrixlab_webp4j_NativeWebP_getChunk
+  (JNIEnv *env, jobject obj, jbyteArray data, jint offset, jint length, jstring fourcc) {
+
+    char id[4];
+    if (!jStringToFourCC(env, fourcc, id)) {
+        return NULL;  // Invalid chunk id
+    }
+
+    uint8_t* webp_data = copySlice(env, data, offset, length);
+    if (webp_data == NULL) {
+        return NULL;  // Invalid range or memory allocation failed
+    }
+
+    // The mux references the input directly, it must not outlive webp_data
+    WebPData bitstream = { webp_data, (size_t)length };
+    WebPMux* mux = WebPMuxCreate(&bitstream, 0);
+    if (mux == NULL) {
+        free(webp_data);
+        return NULL;  // Not a valid WebP container
+    }
+
+    jbyteArray result = NULL;
+    WebPData chunk;
+    if (WebPMuxGetChunk(mux, id, &chunk) == WEBP_MUX_OK) {
+        result = uint8ToJByteArray(env, chunk.bytes, chunk.size);
+    }
+
+    WebPMuxDelete(mux);
+    free(webp_data);
+    return result;
+}
+
+/*
+ * Class:     NativeWebP
+ * Method:    setChunk
+ * Signature: ([BIILjava/lang/String;[B)[B
+ *
+ * This JNI function wraps the libwebp functions WebPMuxSetChunk and WebPMuxAssemble.
+ * It adds or replaces a metadata chunk and re-assembles the RIFF container.
+ * The image bitstream is copied as-is and is never re-encoded.
+ *
+ * Parameters:
+ * - data: A Java byte array containing the WebP file.
+ * - offset: The index of the first byte of the file in the array.
+ * - length: The size of the file in bytes.
+ * - fourcc: The four-character id of the chunk ("EXIF", "ICCP", "XMP " or an unknown chunk id).
+ * - chunk: A Java byte array containing the new chunk payload.
+ *
+ * Returns:
+ * - A Java byte array containing the new WebP file, or NULL if the operation fails.
+ */
+JNIEXPORT jbyteArray JNICALL Java_dev_matrixlab_webp4j_NativeWebP_setChunk
+  (JNIEnv *env, jobject obj, jbyteArray data, jint offset, jint length, jstring fourcc, jbyteArray chunk) {
+
+    char id[4];
+    if (!jStringToFourCC(env, fourcc, id)) {
+        return NULL;  // Invalid chunk id
+    }
+
+    uint8_t* webp_data = copySlice(env, data, offset, length);
+    if (webp_data == NULL) {
+        return NULL;  // Invalid range or memory allocation failed
+    }
+
+    jsize chunk_size = (*env)->GetArrayLength(env, chunk);
+    jbyte* chunk_data = (*env)->GetByteArrayElements(env, chunk, NULL);
+    if (chunk_data == NULL) {
+        free(webp_data);
+        return NULL;  // Failed to get chunk
+    }
+
+    jbyteArray result = NULL;
+    WebPData bitstream = { webp_data, (size_t)length };
+    WebPMux* mux = WebPMuxCreate(&bitstream, 0);
+    if (mux != NULL) {
+        WebPData payload = { (const uint8_t*)chunk_data, (size_t)chunk_size };
+        if (WebPMuxSetChunk(mux, id, &payload, 0) == WEBP_MUX_OK) {
+            result = assembleMux(env, mux);
+        } else {
+            WebPMuxDelete(mux);
+        }
+    }
+
+    (*env)->ReleaseByteArrayElements(env, chunk, chunk_data, JNI_ABORT);
+    free(webp_data);
+    return result;
+}
+
+/*
+ * Class:     NativeWebP
+ * Method:    deleteChunks
+ * Signature: ([BII[Ljava/lang/String;)[B
+ *
+ * This JNI function wraps the libwebp functions WebPMuxDeleteChunk and WebPMuxAssemble.
+ * It removes every chunk with one of the given ids and re-assembles the RIFF container.
+ * Ids that are not present in the file are ignored.
+ *
+ * Parameters:
+ * - data: A Java byte array containing the WebP file.
+ * - offset: The index of the first byte of the file in the array.
+ * - length: The size of the file in bytes.
+ * - fourccs: A Java string array with the four-character ids of the chunks to remove.
+ *
+ * Returns:
+ * - A Java byte array containing the new WebP file, or NULL if the operation fails.
+ */
+JNIEXPORT jbyteArray JNICALL Java_dev_matrixlab_webp4j_NativeWebP_deleteChunks
+  (JNIEnv *env, jobject obj, jbyteArray data, jint offset, jint length, jobjectArray fourccs) {
+
+    uint8_t* webp_data = copySlice(env, data, offset, length);
+    if (webp_data == NULL) {
+        return NULL;  // Invalid range or memory allocation failed
+    }
+
+    WebPData bitstream = { webp_data, (size_t)length };
+    WebPMux* mux = WebPMuxCreate(&bitstream, 0);
+    if (mux == NULL) {
+        free(webp_data);
+        return NULL;  // Not a valid WebP container
+    }
+
+    jsize count = (*env)->GetArrayLength(env, fourccs);
+    for (jsize i = 0; i < count; i++) {
+        char id[4];
+        jstring fourcc = (jstring)(*env)->GetObjectArrayElement(env, fourccs, i);
+        int valid = jStringToFourCC(env, fourcc, id);
+        (*env)->DeleteLocalRef(env, fourcc);
+
+        WebPMuxError err = valid ? WebPMuxDeleteChunk(mux, id) : WEBP_MUX_INVALID_ARGUMENT;
+        if (err != WEBP_MUX_OK && err != WEBP_MUX_NOT_FOUND) {
+            WebPMuxDelete(mux);
+            free(webp_data);
+            return NULL;  // Invalid or non-metadata chunk id
+        }
+    }
+
+    jbyteArray result = assembleMux(env, mux);
+    free(webp_data);
+    return result;
+}
+
+/*
+ * Class:     NativeWebP
+ * Method:    getBitstream
+ * Signature: ([BII)[B
+ *
+ * This JNI function wraps the libwebp functions WebPMuxGetFeatures and WebPMuxGetFrame.
+ * It extracts the image of a still WebP file without any metadata chunks; animated files are rejected.
+ * WebPMuxGetFrame always synthesizes a RIFF container, so the result is a minimal
+ * WebP file holding only the VP8/VP8L chunk (and the ALPH chunk for lossy images
+ * with alpha); it can be passed to any of the decode functions.
+ *
+ * Parameters:
+ * - data: A Java byte array containing the WebP file.
+ * - offset: The index of the first byte of the file in the array.
+ * - length: The size of the file in bytes.
+ *
+ * Returns:
+ * - A Java byte array containing the minimal WebP file, or NULL if the file is animated
+ *   or the operation fails.
+ */
+JNIEXPORT jbyteArray JNICALL Java_dev_matrixlab_webp4j_NativeWebP_getBitstream
+  (JNIEnv *env, jobject obj, jbyteArray data, jint offset, jint length) {
+
+    uint8_t* webp_data = copySlice(env, data, offset, length);
+    if (webp_data == NULL) {
+        return NULL;  // Invalid range or memory allocation failed
+    }
+
+    WebPData bitstream = { webp_data, (size_t)length };
+    WebPMux* mux = WebPMuxCreate(&bitstream, 0);
+    if (mux == NULL) {
+        free(webp_data);
+        return NULL;  // Not a valid WebP container
+    }
+
+    // WebPMuxGetFrame would return the first frame of an animation, which is not the whole image
+    jbyteArray result = NULL;
+    uint32_t flags;
+    WebPMuxFrameInfo frame;
+    if (WebPMuxGetFeatures(mux, &flags) == WEBP_MUX_OK && !(flags & ANIMATION_FLAG)
+            && WebPMuxGetFrame(mux, 1, &frame) == WEBP_MUX_OK) {
+        result = uint8ToJByteArray(env, frame.bitstream.bytes, frame.bitstream.size);
+        // The frame bitstream is allocated by WebPMuxGetFrame
+        WebPDataClear(&frame.bitstream);
+    }
+
+    WebPMuxDelete(mux);
+    free(webp_data);
+    return result;
+}
+
+/*
+ * Native state of a WebPEncoderSession: the encoder configuration, a picture that is
+ * reused while the image size stays the same, and a growable output buffer.
+ */
+typedef struct {
+    WebPConfig config;
+    WebPPicture picture;
+    uint8_t* output;
+    size_t output_size;
+    size_t output_capacity;
+} EncoderSession;
+
+/*
+ * Native state of a WebPDecoderSession: the decoder configuration and growable
+ * input and pixel buffers.
+ */
+typedef struct {
+    WebPDecoderConfig config;
+    uint8_t* input;
+    size_t input_size;
+    size_t input_capacity;
+    uint8_t* pixels;
+    size_t pixels_capacity;
+} DecoderSession;
+
+/*
+ * Grows a session buffer to at least the requested capacity, doubling it to amortize reallocations.
+ * Returns 0 if the memory could not be allocated (the old buffer is kept).
+ */
+static int ensureCapacity(uint8_t** buffer, size_t* capacity, size_t needed) {
+    if (needed <= *capacity) {
+        return 1;
+    }
+    size_t grown = *capacity > 0 ? *capacity : 4096;
+    while (grown < needed) {
+        grown *= 2;
+    }
+    uint8_t* memory = (uint8_t*) realloc(*buffer, grown);
+    if (memory == NULL) {
+        return 0;
+    }
+    *buffer = memory;
+    *capacity = grown;
+    return 1;
+}
+
+/*
+ * WebPWriterFunction that appends the encoded data to the session output buffer.
+ */
+static int encoderSessionWrite(const uint8_t* data, size_t data_size, const WebPPicture* picture) {
+    EncoderSession* session = (EncoderSession*) picture->custom_ptr;
+    if (!ensureCapacity(&session->output, &session->output_capacity, session->output_size + data_size)) {
+        return 0;  // Memory allocation failed
+    }
+    memcpy(session->output + session->output_size, data, data_size);
+    session->output_size += data_size;
+    return 1;
+}
+
+/*
+ * Class:     NativeWebP
+ * Method:    createEncoderSession
+ * Signature: (FZI)J
+ *
+ * This JNI function allocates the native state of an encoder session.
+ *
+ * Parameters:
+ * - quality: A float value representing the quality factor for encoding (0 to 100).
+ * - lossless: Whether images should be encoded losslessly.
+ * - method: The compression method (0 = fast, 6 = slower but better).
+ *
+ * Returns:
+ * - A handle to the session, or 0 if the settings are invalid or memory could not be allocated.
+ */
+JNIEXPORT jlong JNICALL Java_dev_matrixlab_webp4j_NativeWebP_createEncoderSession
+  (JNIEnv *env, jobject obj, jfloat quality, jboolean lossless, jint method) {
+
+    EncoderSession* session = (EncoderSession*) calloc(1, sizeof(EncoderSession));
+    if (session == NULL) {
+        return 0;  // Memory allocation failed
+    }
+
+    if (!WebPConfigInit(&session->config) || !WebPPictureInit(&session->picture)) {
+        free(session);
+        return 0;  // Version mismatch
+    }
+
+    session->config.quality = quality;
+    session->config.lossless = lossless ? 1 : 0;
+    session->config.method = method;
+    if (!WebPValidateConfig(&session->config)) {
+        free(session);
+        return 0;  // Invalid quality or method
+    }
+
+    session->picture.writer = encoderSessionWrite;
+    session->picture.custom_ptr = session;
+
+    return (jlong)(intptr_t) session;
+}
+
+/*
+ * Class:     NativeWebP
+ * Method:    encodeSessionARGB
+ * Signature: (J[IIIIIZ)[B
+ *
+ * This JNI function encodes ARGB pixels (as stored in TYPE_INT_ARGB/TYPE_INT_RGB rasters)
+ * with the settings of an encoder session.
+ *
+ * Parameters:
+ * - handle: The session handle returned by createEncoderSession.
+ * - argb: A Java int array containing 0xAARRGGBB pixels.
+ * - offset: The index of the first pixel in the array.
+ * - width: The width of the image in pixels.
+ * - height: The height of the image in pixels.
+ * - stride: The number of ints per row in the array.
+ * - hasAlpha: Whether the alpha bytes are meaningful; if not, the image is encoded as opaque.
+ *
+ * The function performs the following steps:
+ * 1. Reallocates the session picture only if the image size changed.
+ * 2. Copies the pixel rows directly into the picture (Java ints and libwebp ARGB share the same layout).
+ * 3. Encodes the picture into the session output buffer, which only grows when needed
+ *    (for lossy encoding, WebPEncode converts the picture into newly allocated YUV planes).
+ * 4. Copies the encoded data into a new Java byte array.
+ *
+ * Returns:
+ * - A Java byte array containing the encoded WebP image, or NULL if encoding fails.
+ */
+JNIEXPORT jbyteArray JNICALL Java_dev_matrixlab_webp4j_NativeWebP_encodeSessionARGB
+  (JNIEnv *env, jobject obj, jlong handle, jintArray argb, jint offset, jint width, jint height,
+   jint stride, jboolean hasAlpha) {
+
+    EncoderSession* session = (EncoderSession*)(intptr_t) handle;
+    if (session == NULL || width <= 0 || height <= 0 || stride < width || offset < 0) {
+        return NULL;  // Invalid arguments
+    }
+    if ((jlong)(*env)->GetArrayLength(env, argb) < (jlong)offset + (jlong)stride * (height - 1) + width) {
+        return NULL;  // Pixel array is too small
+    }
+
+    WebPPicture* picture = &session->picture;
+    if (picture->argb == NULL || picture->width != width || picture->height != height) {
+        WebPPictureFree(picture);
+        picture->use_argb = 1;
+        picture->width = width;
+        picture->height = height;
+        if (!WebPPictureAlloc(picture)) {
+            return NULL;  // Memory allocation failed
+        }
+    }
+    // Lossy encoding converts the picture to YUV and clears use_argb, the ARGB buffer is kept
+    picture->use_argb = 1;
+
+    for (int row = 0; row < height; row++) {
+        uint32_t* dst = picture->argb + (size_t)row * picture->argb_stride;
+        (*env)->GetIntArrayRegion(env, argb, offset + row * stride, width, (jint*) dst);
+        if (!hasAlpha) {
+            // TYPE_INT_RGB leaves the top byte undefined
+            for (int x = 0; x < width; x++) {
+                dst[x] |= 0xFF000000u;
+            }
+        }
+    }
+
+    session->output_size = 0;
+    if (!WebPEncode(&session->config, picture)) {
+        return NULL;  // Encoding failed
+    }
+
+    return uint8ToJByteArray(env, session->output, session->output_size);
+}
+
+/*
+ * Class:     NativeWebP
+ * Method:    destroyEncoderSession
+ * Signature: (J)V
+ *
+ * This JNI function releases the native state of an encoder session.
+ */
+JNIEXPORT void JNICALL Java_dev_matrixlab_webp4j_NativeWebP_destroyEncoderSession
+  (JNIEnv *env, jobject obj, jlong handle) {
+
+    EncoderSession* session = (EncoderSession*)(intptr_t) handle;
+    if (session == NULL) {
+        return;
+    }
+    WebPPictureFree(&session->picture);
+    free(session->output);
+    free(session);
+}
+
+/*
+ * Class:     NativeWebP
+ * Method:    createDecoderSession
+ * Signature: ()J
+ *
+ * This JNI function allocates the native state of a decoder session.
+ *
+ * Returns:
+ * - A handle to the session, or 0 if memory could not be allocated.
+ */
+JNIEXPORT jlong JNICALL Java_dev_matrixlab_webp4j_NativeWebP_createDecoderSession
+  (JNIEnv *env, jobject obj) {
+
+    DecoderSession* session = (DecoderSession*) calloc(1, sizeof(DecoderSession));
+    if (session == NULL) {
+        return 0;  // Memory allocation failed
+    }
+
+    if (!WebPInitDecoderConfig(&session->config)) {
+        free(session);
+        return 0;  // Version mismatch
+    }
+
+    return (jlong)(intptr_t) session;
+}
+
+/*
+ * Class:     NativeWebP
+ * Method:    decodeSessionFeatures
+ * Signature: (J[BIILdev/matrixlab/webp4j/WebPBitstreamFeatures;)I
+ *
+ * This JNI function copies WebP data into the session input buffer and reads its bitstream features.
+ * The buffered data is then decoded by decodeSessionARGB.
+ *
+ * Parameters:
+ * - handle: The session handle returned by createDecoderSession.
+ * - data: A Java byte array containing the WebP image data.
+ * - offset: The index of the first byte of the image in the array.
+ * - length: The size of the image data in bytes.
+ * - featuresObj: A Java object of type WebPBitstreamFeatures to store the extracted features.
+ *
+ * Returns:
+ * - VP8_STATUS_OK (0) if the operation is successful.
+ * - A non-zero error code if the operation fails.
+ */
+JNIEXPORT jint JNICALL Java_dev_matrixlab_webp4j_NativeWebP_decodeSessionFeatures
+  (JNIEnv *env, jobject obj, jlong handle, jbyteArray data, jint offset, jint length, jobject featuresObj) {
+
+    DecoderSession* session = (DecoderSession*)(intptr_t) handle;
+    if (session == NULL || offset < 0 || length <= 0
+            || (jlong)offset + length > (jlong)(*env)->GetArrayLength(env, data)) {
+        return VP8_STATUS_INVALID_PARAM;
+    }
+
+    if (!ensureCapacity(&session->input, &session->input_capacity, (size_t) length)) {
+        session->input_size = 0;
+        return VP8_STATUS_OUT_OF_MEMORY;
+    }
+    (*env)->GetByteArrayRegion(env, data, offset, length, (jbyte*) session->input);
+    session->input_size = (size_t) length;
+
+    VP8StatusCode status = WebPGetFeatures(session->input, session->input_size, &session->config.input);
+    if (status != VP8_STATUS_OK) {
+        session->input_size = 0;
+        return status;
+    }
+
+    setFeaturesFields(env, featuresObj, &session->config.input);
+    return status;
+}
+
+/*
+ * Class:     NativeWebP
+ * Method:    decodeSessionARGB
+ * Signature: (J[I)Z
+ *
+ * This JNI function decodes the data buffered by decodeSessionFeatures into 0xAARRGGBB pixels,
+ * the layout of TYPE_INT_ARGB/TYPE_INT_RGB rasters, using the session pixel buffer.
+ *
+ * Parameters:
+ * - handle: The session handle returned by createDecoderSession.
+ * - argb: A Java int array of at least width * height elements to store the pixels.
+ *
+ * Returns:
+ * - true (JNI_TRUE) if decoding is successful.
+ * - false (JNI_FALSE) if decoding fails.
+ */
+JNIEXPORT jboolean JNICALL Java_dev_matrixlab_webp4j_NativeWebP_decodeSessionARGB
+  (JNIEnv *env, jobject obj, jlong handle, jintArray argb) {
+
+    DecoderSession* session = (DecoderSession*)(intptr_t) handle;
+    if (session == NULL || session->input_size == 0) {
+        return JNI_FALSE;  // No data buffered
+    }
+
+    int width = session->config.input.width;
+    int height = session->config.input.height;
+    size_t pixel_count = (size_t) width * height;
+    if ((size_t)(*env)->GetArrayLength(env, argb) < pixel_count) {
+        return JNI_FALSE;  // Pixel array is too small
+    }
+    if (!ensureCapacity(&session->pixels, &session->pixels_capacity, pixel_count * 4)) {
+        return JNI_FALSE;  // Memory allocation failed
+    }
+
+    // 0xAARRGGBB ints are stored as B, G, R, A on little-endian and A, R, G, B on big-endian hosts
+    const uint32_t probe = 1;
+    int little_endian = *(const uint8_t*)&probe == 1;
+
+    WebPDecBuffer* output = &session->config.output;
+    output->colorspace = little_endian ? MODE_BGRA : MODE_ARGB;
+    output->is_external_memory = 1;
+    output->u.RGBA.rgba = session->pixels;
+    output->u.RGBA.stride = width * 4;
+    output->u.RGBA.size = pixel_count * 4;
+
+    VP8StatusCode status = WebPDecode(session->input, session->input_size, &session->config);
+    session->input_size = 0;
+    if (status != VP8_STATUS_OK) {
+        return JNI_FALSE;  // Decoding failed
+    }
+
+    (*env)->SetIntArrayRegion(env, argb, 0, (jsize) pixel_count, (const jint*) session->pixels);
+    return JNI_TRUE;
+}
+
+/*
+ * Class:     NativeWebP
+ * Method:    destroyDecoderSession
+ * Signature: (J)V
+ *
+ * This JNI function releases the native state of a decoder session.
+ */
+JNIEXPORT void JNICALL Java_dev_matrixlab_webp4j_NativeWebP_destroyDecoderSession
+  (JNIEnv *env, jobject obj, jlong handle) {
+
+    DecoderSession* session = (DecoderSession*)(intptr_t) handle;
+    if (session == NULL) {
+        return;
+    }
+    free(session->input);
+    free(session->pixels);
+    free(session);
+}
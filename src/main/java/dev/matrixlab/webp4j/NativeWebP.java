@@ -1,15 +1,26 @@
 package dev.matrixlab.webp4j;
 
+import java.lang.ref.Cleaner;
+
 public class NativeWebP {
 
     private static volatile boolean NATIVE_LIBRARY_LOADED = false;
 
+    // Releases the native state of sessions that were not closed
+    static final Cleaner CLEANER = Cleaner.create();
+
     // int WebPGetInfo(const uint8_t* data, size_t data_size, int* width, int* height);
     public native boolean getInfo(byte[] data, int[] dimensions);
 
     // VP8StatusCode WebPGetFeatures(const uint8_t* data, size_t data_size, WebPBitstreamFeatures* features);
     public native int getFeatures(byte[] data, int dataSize, WebPBitstreamFeatures features);
 
+    // WebPGetInfo on data[offset, offset + length), without copying the range
+    public native boolean getInfoSlice(byte[] data, int offset, int length, int[] dimensions);
+
+    // WebPGetFeatures on data[offset, offset + length), without copying the range
+    public native int getFeaturesSlice(byte[] data, int offset, int length, WebPBitstreamFeatures features);
+
     // size_t WebPEncodeRGB(const uint8_t* rgb, int width, int height, int stride, float quality_factor, uint8_t** output);
     public native byte[] encodeRGB(byte[] image, int width, int height, int stride, float quality);
 
@@ -22,12 +33,66 @@ public class NativeWebP {
     // size_t WebPEncodeLosslessRGBA(const uint8_t* rgba, int width, int height, int stride, uint8_t** output);
     public native byte[] encodeLosslessRGBA(byte[] image, int width, int height, int stride);
 
+    // WebPPictureImportRGB(A) once -> WebPEncode per pass, bisecting quality until the output fits maxBytes
+    public native byte[] encodeToTargetSize(byte[] image, int width, int height, int stride, boolean hasAlpha,
+                                            int maxBytes, float minQuality, float maxQuality, int maxPasses, int method,
+                                            float[] stats);
+
     // uint8_t* WebPDecodeRGBInto(const uint8_t* data, size_t data_size, uint8_t* output_buffer, int output_buffer_size, int output_stride);
     public native boolean decodeRGBInto(byte[] data, byte[] outputBuffer, int outputStride);
 
     // uint8_t* WebPDecodeRGBAInto(const uint8_t* data, size_t data_size, uint8_t* output_buffer, int output_buffer_size, int output_stride);
     public native boolean decodeRGBAInto(byte[] data, byte[] outputBuffer, int outputStride);
 
+    // WebPDecodeRGBInto on data[offset, offset + length), rows written from outputBuffer[outputOffset]
+    public native boolean decodeRGBIntoSlice(byte[] data, int offset, int length, byte[] outputBuffer, int outputOffset, int outputStride);
+
+    // WebPDecodeRGBAInto on data[offset, offset + length), rows written from outputBuffer[outputOffset]
+    public native boolean decodeRGBAIntoSlice(byte[] data, int offset, int length, byte[] outputBuffer, int outputOffset, int outputStride);
+
+    // WebPPictureAlloc (WEBP_YUV420, use_argb = 0) -> WebPEncode
+    public native byte[] encodeYUV420(byte[] y, byte[] u, byte[] v, int width, int height, int yStride, int uvStride, float quality);
+
+    // WebPDecodeYUVInto on data[offset, offset + length), without copying the range or the planes
+    public native boolean decodeYUVInto(byte[] data, int offset, int length, byte[] y, int yStride, byte[] u, byte[] v, int uvStride);
+
+    // WebPDecode (with crop/scale) -> WebPPictureImportRGB(A) -> WebPEncode on data[offset, offset + length), all in native memory
+    public native byte[] transcode(byte[] data, int offset, int length, int cropX, int cropY, int cropWidth, int cropHeight,
+                                   int scaledWidth, int scaledHeight, float quality, boolean lossless, int method);
+
+    // WebPMuxError WebPMuxGetChunk(const WebPMux* mux, const char fourcc[4], WebPData* chunk_data); on data[offset, offset + length)
+    public native byte[] getChunk(byte[] data, int offset, int length, String fourcc);
+
+    // WebPMuxError WebPMuxSetChunk(WebPMux* mux, const char fourcc[4], const WebPData* chunk_data, int copy_data); on data[offset, offset + length)
+    public native byte[] setChunk(byte[] data, int offset, int length, String fourcc, byte[] chunk);
+
+    // WebPMuxError WebPMuxDeleteChunk(WebPMux* mux, const char fourcc[4]); on data[offset, offset + length)
+    public native byte[] deleteChunks(byte[] data, int offset, int length, String[] fourccs);
+
+    // WebPMuxError WebPMuxGetFrame(const WebPMux* mux, uint32_t nth, WebPMuxFrameInfo* frame); on data[offset, offset + length)
+    public native byte[] getBitstream(byte[] data, int offset, int length);
+
+    // WebPConfigInit + WebPPictureInit, kept alive until destroyEncoderSession
+    public native long createEncoderSession(float quality, boolean lossless, int method);
+
+    // WebPEncode with the session picture and output buffer, reallocated only when the image size changes
+    public native byte[] encodeSessionARGB(long session, int[] argb, int offset, int width, int height, int stride, boolean hasAlpha);
+
+    // WebPPictureFree + free of the session buffers
+    public native void destroyEncoderSession(long session);
+
+    // WebPInitDecoderConfig, kept alive until destroyDecoderSession
+    public native long createDecoderSession();
+
+    // VP8StatusCode WebPGetFeatures(...) on a copy of the data kept in the session input buffer
+    public native int decodeSessionFeatures(long session, byte[] data, int offset, int length, WebPBitstreamFeatures features);
+
+    // VP8StatusCode WebPDecode(...) of the buffered data into the session pixel buffer (MODE_BGRA / MODE_ARGB)
+    public native boolean decodeSessionARGB(long session, int[] argb);
+
+    // free of the session buffers
+    public native void destroyDecoderSession(long session);
+
     // Use the NativeLibraryLoaderUtils to load the native library
     static void loadNativeLibrary() {
         if (!NATIVE_LIBRARY_LOADED) {
@@ -0,0 +1,85 @@
+package dev.matrixlab.webp4j;
+
+/**
+ * Options for {@link WebPCodec#encodeToTargetSize(java.awt.image.BufferedImage, int, TargetSizeOptions)}.
+ * <p>
+ * The encoder first tries the maximum quality, then the minimum quality, then bisects the range
+ * until the number of passes is used up. More passes get closer to the size limit, each pass is
+ * one full lossy encode.
+ */
+public class TargetSizeOptions {
+
+    // Quality range to search
+    private float minQuality = 10.0f;
+    private float maxQuality = 90.0f;
+
+    // Upper bound on the number of encoding passes
+    private int maxPasses = 6;
+
+    // Encoder settings
+    private int method = 4;
+
+    /**
+     * @param minQuality Lowest quality to try (0-100)
+     * @param maxQuality Highest quality to try (0-100)
+     * @return This options instance
+     */
+    public TargetSizeOptions qualityRange(float minQuality, float maxQuality) {
+        if (minQuality < 0 || maxQuality > 100 || minQuality > maxQuality) {
+            throw new IllegalArgumentException("Invalid quality range: " + minQuality + "-" + maxQuality);
+        }
+        this.minQuality = minQuality;
+        this.maxQuality = maxQuality;
+        return this;
+    }
+
+    /**
+     * @param maxPasses The maximum number of encoding passes (at least 1).
+     * @return This options instance
+     */
+    public TargetSizeOptions maxPasses(int maxPasses) {
+        if (maxPasses < 1) {
+            throw new IllegalArgumentException("Max passes must be at least 1: " + maxPasses);
+        }
+        this.maxPasses = maxPasses;
+        return this;
+    }
+
+    /**
+     * @param method The compression method (0 = fast, 6 = slower but better).
+     * @return This options instance
+     */
+    public TargetSizeOptions method(int method) {
+        if (method < 0 || method > 6) {
+            throw new IllegalArgumentException("Method must be between 0 and 6: " + method);
+        }
+        this.method = method;
+        return this;
+    }
+
+    public float getMinQuality() {
+        return minQuality;
+    }
+
+    public float getMaxQuality() {
+        return maxQuality;
+    }
+
+    public int getMaxPasses() {
+        return maxPasses;
+    }
+
+    public int getMethod() {
+        return method;
+    }
+
+    @Override
+    public String toString() {
+        return "TargetSizeOptions{" +
+                "minQuality=" + minQuality +
+                ", maxQuality=" + maxQuality +
+                ", maxPasses=" + maxPasses +
+                ", method=" + method +
+                '}';
+    }
+}
@@ -0,0 +1,65 @@
+package dev.matrixlab.webp4j;
+
+/**
+ * Result of {@link WebPCodec#encodeToTargetSize(java.awt.image.BufferedImage, int, TargetSizeOptions)}.
+ */
+public class TargetSizeResult {
+
+    private final byte[] data;
+    private final float quality;
+    private final int passes;
+    private final boolean targetMet;
+
+    TargetSizeResult(byte[] data, float quality, int passes, boolean targetMet) {
+        this.data = data;
+        this.quality = quality;
+        this.passes = passes;
+        this.targetMet = targetMet;
+    }
+
+    /**
+     * @return The encoded WebP image.
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    /**
+     * @return The size of the encoded WebP image in bytes.
+     */
+    public int getSize() {
+        return data.length;
+    }
+
+    /**
+     * @return The quality the image was encoded with.
+     */
+    public float getQuality() {
+        return quality;
+    }
+
+    /**
+     * @return The number of encoding passes that were run.
+     */
+    public int getPasses() {
+        return passes;
+    }
+
+    /**
+     * @return True if the image fits into the size limit. If false, none of the tried qualities
+     *         was small enough and the smallest output is returned.
+     */
+    public boolean isTargetMet() {
+        return targetMet;
+    }
+
+    @Override
+    public String toString() {
+        return "TargetSizeResult{" +
+                "size=" + data.length +
+                ", quality=" + quality +
+                ", passes=" + passes +
+                ", targetMet=" + targetMet +
+                '}';
+    }
+}
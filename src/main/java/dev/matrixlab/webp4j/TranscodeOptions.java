@@ -0,0 +1,147 @@
+package dev.matrixlab.webp4j;
+
+/**
+ * Options for {@link WebPCodec#transcode(byte[], TranscodeOptions)}.
+ * <p>
+ * Cropping is applied first, in source pixels, then the cropped area is scaled to the
+ * requested size. A width or height of 0 is derived from the aspect ratio of the cropped area;
+ * if both are 0 the image keeps its size.
+ */
+public class TranscodeOptions {
+
+    // Crop area in source pixels, a width/height of 0 disables cropping
+    private int cropX;
+    private int cropY;
+    private int cropWidth;
+    private int cropHeight;
+
+    // Output size, 0 = derived from the aspect ratio
+    private int width;
+    private int height;
+
+    // Encoder settings
+    private float quality = 75.0f;
+    private boolean lossless;
+    private int method = 4;
+
+    /**
+     * Crops the source image before scaling.
+     *
+     * @param x      Left edge of the crop area
+     * @param y      Top edge of the crop area
+     * @param width  Width of the crop area
+     * @param height Height of the crop area
+     * @return This options instance
+     */
+    public TranscodeOptions crop(int x, int y, int width, int height) {
+        if (x < 0 || y < 0 || width <= 0 || height <= 0
+                || x > Integer.MAX_VALUE - width || y > Integer.MAX_VALUE - height) {
+            throw new IllegalArgumentException("Invalid crop area: " + x + "," + y + " " + width + "x" + height);
+        }
+        this.cropX = x;
+        this.cropY = y;
+        this.cropWidth = width;
+        this.cropHeight = height;
+        return this;
+    }
+
+    /**
+     * Scales the (cropped) image to the given size. Pass 0 for one of the dimensions to keep the aspect ratio.
+     *
+     * @param width  Output width, or 0
+     * @param height Output height, or 0
+     * @return This options instance
+     */
+    public TranscodeOptions resize(int width, int height) {
+        if (width < 0 || height < 0) {
+            throw new IllegalArgumentException("Invalid output size: " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        return this;
+    }
+
+    /**
+     * @param quality The WebP quality parameter (0-100). Ignored when lossless is true.
+     * @return This options instance
+     */
+    public TranscodeOptions quality(float quality) {
+        if (quality < 0 || quality > 100) {
+            throw new IllegalArgumentException("Quality must be between 0 and 100: " + quality);
+        }
+        this.quality = quality;
+        return this;
+    }
+
+    /**
+     * @param lossless True for lossless encoding, false for lossy encoding.
+     * @return This options instance
+     */
+    public TranscodeOptions lossless(boolean lossless) {
+        this.lossless = lossless;
+        return this;
+    }
+
+    /**
+     * @param method The compression method (0 = fast, 6 = slower but better).
+     * @return This options instance
+     */
+    public TranscodeOptions method(int method) {
+        if (method < 0 || method > 6) {
+            throw new IllegalArgumentException("Method must be between 0 and 6: " + method);
+        }
+        this.method = method;
+        return this;
+    }
+
+    public int getCropX() {
+        return cropX;
+    }
+
+    public int getCropY() {
+        return cropY;
+    }
+
+    public int getCropWidth() {
+        return cropWidth;
+    }
+
+    public int getCropHeight() {
+        return cropHeight;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public float getQuality() {
+        return quality;
+    }
+
+    public boolean isLossless() {
+        return lossless;
+    }
+
+    public int getMethod() {
+        return method;
+    }
+
+    @Override
+    public String toString() {
+        return "TranscodeOptions{" +
+                "cropX=" + cropX +
+                ", cropY=" + cropY +
+                ", cropWidth=" + cropWidth +
+                ", cropHeight=" + cropHeight +
+                ", width=" + width +
+                ", height=" + height +
+                ", quality=" + quality +
+                ", lossless=" + lossless +
+                ", method=" + method +
+                '}';
+    }
+}
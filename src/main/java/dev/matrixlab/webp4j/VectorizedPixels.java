@@ -0,0 +1,66 @@
+package dev.matrixlab.webp4j;
+
+/**
+ * SIMD pixel swizzles used by {@link WebPCodec}.
+ * <p>
+ * This is the baseline implementation, which converts nothing. On Java 21+ the multi-release jar
+ * replaces it with a version based on the {@code jdk.incubator.vector} API (enabled with
+ * {@code --add-modules jdk.incubator.vector}).
+ * <p>
+ * Every method converts a prefix of the input and returns the number of pixels it converted;
+ * the caller finishes the remaining pixels with its scalar loop.
+ */
+final class VectorizedPixels {
+
+    // Private constructor to prevent instantiation.
+    private VectorizedPixels() {
+        throw new AssertionError("Cannot instantiate utility class.");
+    }
+
+    /**
+     * @return True if the vectorized implementation is in use.
+     */
+    static boolean isAvailable() {
+        return false;
+    }
+
+    // 0xAARRGGBB ints -> R, G, B, A bytes
+    static int intArgbToRgba(int[] src, byte[] dst) {
+        return 0;
+    }
+
+    // 0x..RRGGBB ints -> R, G, B bytes
+    static int intRgbToRgb(int[] src, byte[] dst) {
+        return 0;
+    }
+
+    // 0x..BBGGRR ints -> R, G, B bytes
+    static int intBgrToRgb(int[] src, byte[] dst) {
+        return 0;
+    }
+
+    // B, G, R bytes -> R, G, B bytes
+    static int bgrToRgb(byte[] src, byte[] dst) {
+        return 0;
+    }
+
+    // A, B, G, R bytes -> R, G, B, A bytes
+    static int abgrToRgba(byte[] src, byte[] dst) {
+        return 0;
+    }
+
+    // A, B, G, R bytes -> R, G, B bytes
+    static int abgrToRgb(byte[] src, byte[] dst) {
+        return 0;
+    }
+
+    // R, G, B, A bytes -> 0xAARRGGBB ints
+    static int rgbaToIntArgb(byte[] src, int[] dst) {
+        return 0;
+    }
+
+    // R, G, B bytes -> 0xFFRRGGBB ints
+    static int rgbToIntArgb(byte[] src, int[] dst) {
+        return 0;
+    }
+}
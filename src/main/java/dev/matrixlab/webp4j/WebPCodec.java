@@ -4,8 +4,11 @@ import java.awt.image.BufferedImage;
 import java.awt.image.DataBuffer;
 import java.awt.image.DataBufferByte;
 import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.IndexColorModel;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Objects;
 
 public final class WebPCodec {
 
@@ -40,6 +43,29 @@ public final class WebPCodec {
         return dimensions;
     }
 
+    /**
+     * Retrieves information about a WebP image stored in a range of a byte array,
+     * e.g. a payload inside a larger network buffer, without copying the range.
+     *
+     * @param webPData Byte array containing WebP image data
+     * @param offset   Index of the first byte of the image
+     * @param length   Size of the image data in bytes
+     * @return int array containing width and height of the image [width, height]
+     * @throws IOException If there is an error processing the image
+     */
+    public static int[] getWebPInfo(byte[] webPData, int offset, int length) throws IOException {
+        checkSlice(webPData, offset, length);
+
+        int[] dimensions = new int[2];
+        boolean success = nativeWebP.getInfoSlice(webPData, offset, length, dimensions);
+
+        if (!success) {
+            throw new IOException("Failed to retrieve WebP image information.");
+        }
+
+        return dimensions;
+    }
+
     /**
      * Encodes an RGB/RGBA BufferedImage to a WebP encoded byte array.
      *
@@ -72,7 +98,7 @@ public final class WebPCodec {
         // Calculate the stride (number of bytes per row), each pixel is represented by 3 bytes (RGB) / 4 bytes (RGBA).
         int stride = width * (hasAlpha ? 4 : 3);
 
-        // Encode the RGB/RGBA data to WebP format using nativeWebP.
+        // Encode the RGB/RGBA data to WebP format using the native nativeWebP.
         try {
             byte[] encodedWebP = encodeWithNativeLibrary(imageBytes, width, height, stride, quality, lossless, hasAlpha);
             
@@ -113,6 +139,61 @@ public final class WebPCodec {
         return encodeImage(bufferedImage, 0, true);
     }
 
+    /**
+     * Lossy encodes a BufferedImage at the highest quality whose output fits into maxBytes.
+     * <p>
+     * The pixels are converted and imported into libwebp once; the quality search then
+     * re-encodes the same native picture, with the number of passes capped by the options.
+     *
+     * @param bufferedImage The input BufferedImage.
+     * @param maxBytes      The maximum size of the encoded image in bytes.
+     * @param options       Quality range, pass limit and compression method.
+     * @return The encoded image, the quality chosen and the passes used.
+     * @throws IOException If an error occurs during image conversion or encoding.
+     */
+    public static TargetSizeResult encodeToTargetSize(BufferedImage bufferedImage, int maxBytes,
+                                                      TargetSizeOptions options) throws IOException {
+        if (bufferedImage == null) {
+            throw new IllegalArgumentException("The input BufferedImage cannot be null.");
+        }
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Max bytes must be positive: " + maxBytes);
+        }
+        if (options == null) {
+            throw new IllegalArgumentException("The target size options cannot be null.");
+        }
+
+        int width = bufferedImage.getWidth();
+        int height = bufferedImage.getHeight();
+
+        // Convert the BufferedImage to an RGB/RGBA byte array.
+        byte[] imageBytes = WebPCodec.convertBufferedImageToBytes(bufferedImage);
+        if (imageBytes.length == 0) {
+            throw new IOException("Failed to convert BufferedImage to a byte array.");
+        }
+
+        // Release image resources as soon as they are no longer needed.
+        bufferedImage.flush();
+
+        boolean hasAlpha = bufferedImage.getColorModel().hasAlpha();
+        int stride = width * (hasAlpha ? 4 : 3);
+
+        try {
+            // [quality, passes]
+            float[] stats = new float[2];
+            byte[] encodedWebP = nativeWebP.encodeToTargetSize(imageBytes, width, height, stride, hasAlpha, maxBytes,
+                    options.getMinQuality(), options.getMaxQuality(), options.getMaxPasses(), options.getMethod(), stats);
+            if (encodedWebP == null || encodedWebP.length == 0) {
+                throw new IOException("Target size WebP encoding failed with " + options + ".");
+            }
+
+            return new TargetSizeResult(encodedWebP, stats[0], (int) stats[1], encodedWebP.length <= maxBytes);
+        } finally {
+            // Clear the contents of the imageBytes and remove its reference to allow garbage collection.
+            Arrays.fill(imageBytes, (byte) 0);
+        }
+    }
+
     /**
      * Decodes a WebP image (stored as a byte array) into an RGB/RGBA BufferedImage.
      *
@@ -124,16 +205,32 @@ public final class WebPCodec {
         if (webPData == null || webPData.length == 0) {
             throw new IllegalArgumentException("The input WebP data cannot be null or empty.");
         }
+        return decodeImage(webPData, 0, webPData.length);
+    }
+
+    /**
+     * Decodes a WebP image stored in a range of a byte array into an RGB/RGBA BufferedImage.
+     * Only the range is handed to libwebp, so the payload does not have to be copied out of
+     * a larger buffer first.
+     *
+     * @param webPData The byte array containing the WebP encoded image.
+     * @param offset   The index of the first byte of the image.
+     * @param length   The size of the image data in bytes.
+     * @return A BufferedImage representing the decoded RGB/RGBA image.
+     * @throws IOException If an error occurs during retrieval of image info or decoding.
+     */
+    public static BufferedImage decodeImage(byte[] webPData, int offset, int length) throws IOException {
+        checkSlice(webPData, offset, length);
 
         // Retrieve image dimensions from the WebP data.
-        int[] dimensions = WebPCodec.getWebPInfo(webPData);
+        int[] dimensions = WebPCodec.getWebPInfo(webPData, offset, length);
 
         int width = dimensions[0];
         int height = dimensions[1];
 
         WebPBitstreamFeatures features = new WebPBitstreamFeatures();
 
-        int status = nativeWebP.getFeatures(webPData, webPData.length, features);
+        int status = nativeWebP.getFeaturesSlice(webPData, offset, length, features);
         VP8StatusCode code = VP8StatusCode.getStatusCode(status);
         if (code != VP8StatusCode.VP8_STATUS_OK) {
             throw new IOException("Failed to get WebP bitstream features, error code: " + code);
@@ -150,8 +247,8 @@ public final class WebPCodec {
         try {
             // Decode the WebP data into the provided RGB/RGBA buffer.
             boolean success = hasAlpha
-                    ? nativeWebP.decodeRGBAInto(webPData, outputBuffer, outputStride)
-                    : nativeWebP.decodeRGBInto(webPData, outputBuffer, outputStride);
+                    ? nativeWebP.decodeRGBAIntoSlice(webPData, offset, length, outputBuffer, 0, outputStride)
+                    : nativeWebP.decodeRGBIntoSlice(webPData, offset, length, outputBuffer, 0, outputStride);
             if (!success) {
                 throw new IOException("Failed to decode WebP data into RGB buffer.");
             }
@@ -165,6 +262,187 @@ public final class WebPCodec {
         }
     }
 
+    /**
+     * Decodes a WebP image (stored as a byte array) into a grayscale BufferedImage.
+     * <p>
+     * The luma plane is decoded directly into the raster of a TYPE_BYTE_GRAY image,
+     * so no RGB conversion takes place. Any alpha channel is discarded.
+     *
+     * @param webPData The byte array containing the WebP encoded image.
+     * @return A BufferedImage of type TYPE_BYTE_GRAY.
+     * @throws IOException If an error occurs during retrieval of image info or decoding.
+     */
+    public static BufferedImage decodeGrayImage(byte[] webPData) throws IOException {
+        if (webPData == null || webPData.length == 0) {
+            throw new IllegalArgumentException("The input WebP data cannot be null or empty.");
+        }
+        return decodeGrayImage(webPData, 0, webPData.length);
+    }
+
+    /**
+     * Decodes a WebP image stored in a range of a byte array into a grayscale BufferedImage.
+     *
+     * @param webPData The byte array containing the WebP encoded image.
+     * @param offset   The index of the first byte of the image.
+     * @param length   The size of the image data in bytes.
+     * @return A BufferedImage of type TYPE_BYTE_GRAY.
+     * @throws IOException If an error occurs during retrieval of image info or decoding.
+     * @see #decodeGrayImage(byte[])
+     */
+    public static BufferedImage decodeGrayImage(byte[] webPData, int offset, int length) throws IOException {
+        checkSlice(webPData, offset, length);
+
+        // Retrieve image dimensions from the WebP data.
+        int[] dimensions = WebPCodec.getWebPInfo(webPData, offset, length);
+
+        int width = dimensions[0];
+        int height = dimensions[1];
+        int uvStride = (width + 1) / 2;
+
+        // Decode the luma plane straight into the image raster, chroma is decoded into scratch planes.
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] gray = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        byte[] u = new byte[uvStride * ((height + 1) / 2)];
+        byte[] v = new byte[u.length];
+
+        if (!nativeWebP.decodeYUVInto(webPData, offset, length, gray, width, u, v, uvStride)) {
+            throw new IOException("Failed to decode WebP data into grayscale buffer.");
+        }
+
+        // Map luma to gray samples in place
+        byte[] lookup = GrayLookup.LUMA_TO_BYTE_GRAY;
+        for (int i = 0; i < gray.length; i++) {
+            gray[i] = lookup[gray[i] & 0xFF];
+        }
+
+        return image;
+    }
+
+    /**
+     * Encodes YUV420 planes (for example frames produced by a video decoder) to a lossy WebP encoded byte array.
+     * <p>
+     * The planes are handed to libwebp as-is, so unlike {@link #encodeImage(BufferedImage, float)}
+     * no RGB conversion takes place on either side.
+     *
+     * @param y        The luma plane
+     * @param u        The U (Cb) plane, subsampled by 2 in both directions
+     * @param v        The V (Cr) plane, subsampled by 2 in both directions
+     * @param width    Image width
+     * @param height   Image height
+     * @param yStride  Bytes per row in the luma plane
+     * @param uvStride Bytes per row in the U and V planes
+     * @param quality  The WebP quality parameter (0-100)
+     * @return A byte array containing the WebP encoded data.
+     * @throws IOException If encoding fails.
+     */
+    public static byte[] encodeYUV420(byte[] y, byte[] u, byte[] v, int width, int height,
+                                      int yStride, int uvStride, float quality) throws IOException {
+        checkYUV420Planes(y, u, v, width, height, yStride, uvStride);
+
+        byte[] encodedWebP = nativeWebP.encodeYUV420(y, u, v, width, height, yStride, uvStride, quality);
+        if (encodedWebP == null || encodedWebP.length == 0) {
+            throw new IOException("YUV420 WebP encoding failed.");
+        }
+
+        return encodedWebP;
+    }
+
+    /**
+     * Decodes a WebP image into caller-provided YUV420 planes.
+     * Use {@link #getWebPInfo(byte[])} to size the planes: the luma plane needs {@code yStride * height} bytes,
+     * the U and V planes {@code uvStride * ((height + 1) / 2)} bytes each.
+     *
+     * @param webPData The byte array containing the WebP encoded image.
+     * @param y        The luma plane to decode into
+     * @param yStride  Bytes per row in the luma plane
+     * @param u        The U (Cb) plane to decode into
+     * @param v        The V (Cr) plane to decode into
+     * @param uvStride Bytes per row in the U and V planes
+     * @throws IOException If decoding fails or the planes are too small.
+     */
+    public static void decodeYUV420Into(byte[] webPData, byte[] y, int yStride, byte[] u, byte[] v, int uvStride)
+            throws IOException {
+        if (webPData == null || webPData.length == 0) {
+            throw new IllegalArgumentException("The input WebP data cannot be null or empty.");
+        }
+        decodeYUV420Into(webPData, 0, webPData.length, y, yStride, u, v, uvStride);
+    }
+
+    /**
+     * Decodes a WebP image stored in a range of a byte array into caller-provided YUV420 planes.
+     * Neither the range nor the planes are copied.
+     *
+     * @param webPData The byte array containing the WebP encoded image.
+     * @param offset   The index of the first byte of the image.
+     * @param length   The size of the image data in bytes.
+     * @param y        The luma plane to decode into
+     * @param yStride  Bytes per row in the luma plane
+     * @param u        The U (Cb) plane to decode into
+     * @param v        The V (Cr) plane to decode into
+     * @param uvStride Bytes per row in the U and V planes
+     * @throws IOException If decoding fails or the planes are too small.
+     * @see #decodeYUV420Into(byte[], byte[], int, byte[], byte[], int)
+     */
+    public static void decodeYUV420Into(byte[] webPData, int offset, int length,
+                                        byte[] y, int yStride, byte[] u, byte[] v, int uvStride) throws IOException {
+        checkSlice(webPData, offset, length);
+        if (y == null || u == null || v == null) {
+            throw new IllegalArgumentException("The Y, U and V planes cannot be null.");
+        }
+
+        if (!nativeWebP.decodeYUVInto(webPData, offset, length, y, yStride, u, v, uvStride)) {
+            throw new IOException("Failed to decode WebP data into YUV420 planes.");
+        }
+    }
+
+    /**
+     * Transcodes a WebP image into a new WebP image, optionally cropping and resizing it.
+     * <p>
+     * Decoding, cropping, scaling and encoding all happen in native memory in a single call,
+     * so no intermediate pixel buffers or BufferedImages are created on the Java side.
+     *
+     * @param webPData The byte array containing the source WebP image.
+     * @param options  Crop, resize and encoder settings.
+     * @return A byte array containing the transcoded WebP data.
+     * @throws IOException If the source cannot be decoded or the result cannot be encoded.
+     */
+    public static byte[] transcode(byte[] webPData, TranscodeOptions options) throws IOException {
+        if (webPData == null || webPData.length == 0) {
+            throw new IllegalArgumentException("The input WebP data cannot be null or empty.");
+        }
+        return transcode(webPData, 0, webPData.length, options);
+    }
+
+    /**
+     * Transcodes a WebP image stored in a range of a byte array into a new WebP image.
+     *
+     * @param webPData The byte array containing the source WebP image.
+     * @param offset   The index of the first byte of the image.
+     * @param length   The size of the image data in bytes.
+     * @param options  Crop, resize and encoder settings.
+     * @return A byte array containing the transcoded WebP data.
+     * @throws IOException If the source cannot be decoded or the result cannot be encoded.
+     * @see #transcode(byte[], TranscodeOptions)
+     */
+    public static byte[] transcode(byte[] webPData, int offset, int length, TranscodeOptions options)
+            throws IOException {
+        checkSlice(webPData, offset, length);
+        if (options == null) {
+            throw new IllegalArgumentException("The transcode options cannot be null.");
+        }
+
+        byte[] encodedWebP = nativeWebP.transcode(webPData, offset, length,
+                options.getCropX(), options.getCropY(), options.getCropWidth(), options.getCropHeight(),
+                options.getWidth(), options.getHeight(),
+                options.getQuality(), options.isLossless(), options.getMethod());
+
+        if (encodedWebP == null || encodedWebP.length == 0) {
+            throw new IOException("WebP transcoding failed with " + options + ".");
+        }
+
+        return encodedWebP;
+    }
+
     /**
      * Handles the native library encoding calls based on encoding type and alpha channel.
      *
@@ -190,6 +468,42 @@ public final class WebPCodec {
         }
     }
 
+    /**
+     * Validates a range of WebP data before it is passed to the native library.
+     *
+     * @throws IllegalArgumentException If the data is null or the range is empty.
+     * @throws IndexOutOfBoundsException If the range is outside the array.
+     */
+    private static void checkSlice(byte[] webPData, int offset, int length) {
+        if (webPData == null || length == 0) {
+            throw new IllegalArgumentException("The input WebP data cannot be null or empty.");
+        }
+        Objects.checkFromIndexSize(offset, length, webPData.length);
+    }
+
+    /**
+     * Validates the dimensions and sizes of YUV420 planes before they are passed to the native library.
+     */
+    private static void checkYUV420Planes(byte[] y, byte[] u, byte[] v, int width, int height,
+                                          int yStride, int uvStride) {
+        if (y == null || u == null || v == null) {
+            throw new IllegalArgumentException("The Y, U and V planes cannot be null.");
+        }
+        int uvWidth = (width + 1) / 2;
+        int uvHeight = (height + 1) / 2;
+        if (width <= 0 || height <= 0 || yStride < width || uvStride < uvWidth) {
+            throw new IllegalArgumentException("Invalid YUV420 layout: " + width + "x" + height
+                    + ", yStride=" + yStride + ", uvStride=" + uvStride);
+        }
+        if (y.length < (long) yStride * (height - 1) + width) {
+            throw new IllegalArgumentException("The Y plane is too small: " + y.length + " bytes.");
+        }
+        long uvSize = (long) uvStride * (uvHeight - 1) + uvWidth;
+        if (u.length < uvSize || v.length < uvSize) {
+            throw new IllegalArgumentException("The U/V planes are too small, " + uvSize + " bytes required.");
+        }
+    }
+
     /**
      * Creates a BufferedImage from a byte array containing pixel data.
      * <p>
@@ -216,20 +530,21 @@ public final class WebPCodec {
         BufferedImage image = new BufferedImage(width, height, imageType);
         int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
 
-        int index = 0;
-        int pixelIndex = 0;
-
-        // Process entire rows at once to improve cache utilization
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int r = outputBuffer[index++] & 0xFF;
-                int g = outputBuffer[index++] & 0xFF;
-                int b = outputBuffer[index++] & 0xFF;
-                int a = hasAlpha ? (outputBuffer[index++] & 0xFF) : 255;
-
-                // Set values directly in the pixel array
-                pixels[pixelIndex++] = (a << 24) | (r << 16) | (g << 8) | b;
-            }
+        // Vectorized prefix (if available), scalar remainder
+        int pixelIndex = hasAlpha
+                ? VectorizedPixels.rgbaToIntArgb(outputBuffer, pixels)
+                : VectorizedPixels.rgbToIntArgb(outputBuffer, pixels);
+        int index = pixelIndex * (hasAlpha ? 4 : 3);
+
+        // The pixel array is contiguous, so all rows can be processed in one pass
+        while (pixelIndex < pixels.length) {
+            int r = outputBuffer[index++] & 0xFF;
+            int g = outputBuffer[index++] & 0xFF;
+            int b = outputBuffer[index++] & 0xFF;
+            int a = hasAlpha ? (outputBuffer[index++] & 0xFF) : 255;
+
+            // Set values directly in the pixel array
+            pixels[pixelIndex++] = (a << 24) | (r << 16) | (g << 8) | b;
         }
 
         // Set unused references to null to help GC
@@ -242,12 +557,13 @@ public final class WebPCodec {
      * Extracts pixel data from a BufferedImage into a byte array.
      * <p>
      * This method automatically detects the image's color type, channel order, and alpha presence,
-     * then extracts pixel data accordingly.
+     * then extracts pixel data accordingly. Package-private so that tests and benchmarks can
+     * compare it with {@link #processImageByRows}.
      *
      * @param image The BufferedImage to extract pixel data from.
      * @return A byte array containing the pixel data in the appropriate color format.
      */
-    private static byte[] convertBufferedImageToBytes(BufferedImage image) {
+    static byte[] convertBufferedImageToBytes(BufferedImage image) {
         // Check if the image has an Alpha channel
         boolean hasAlpha = image.getColorModel().hasAlpha();
 
@@ -272,8 +588,10 @@ public final class WebPCodec {
                         int[] intPixels = ((DataBufferInt) dataBuffer).getData();
                         // Use direct array access for maximum speed
                         if (hasAlpha) {
-                            int index = 0;
-                            for (int i = 0; i < intPixels.length; i++) {
+                            // Vectorized prefix (if available), scalar remainder
+                            int i = VectorizedPixels.intArgbToRgba(intPixels, output);
+                            int index = i * 4;
+                            for (; i < intPixels.length; i++) {
                                 int pixel = intPixels[i];
                                 output[index++] = (byte) ((pixel >> 16) & 0xFF); // Red
                                 output[index++] = (byte) ((pixel >> 8) & 0xFF);  // Green
@@ -281,8 +599,9 @@ public final class WebPCodec {
                                 output[index++] = (byte) ((pixel >> 24) & 0xFF); // Alpha
                             }
                         } else {
-                            int index = 0;
-                            for (int i = 0; i < intPixels.length; i++) {
+                            int i = VectorizedPixels.intRgbToRgb(intPixels, output);
+                            int index = i * 3;
+                            for (; i < intPixels.length; i++) {
                                 int pixel = intPixels[i];
                                 output[index++] = (byte) ((pixel >> 16) & 0xFF); // Red
                                 output[index++] = (byte) ((pixel >> 8) & 0xFF);  // Green
@@ -300,8 +619,9 @@ public final class WebPCodec {
                     DataBuffer dataBuffer = image.getRaster().getDataBuffer();
                     if (dataBuffer instanceof DataBufferInt) {
                         int[] bgrIntPixels = ((DataBufferInt) dataBuffer).getData();
-                        int index = 0;
-                        for (int i = 0; i < bgrIntPixels.length; i++) {
+                        int i = hasAlpha ? 0 : VectorizedPixels.intBgrToRgb(bgrIntPixels, output);
+                        int index = i * 3;
+                        for (; i < bgrIntPixels.length; i++) {
                             int pixel = bgrIntPixels[i];
                             output[index++] = (byte) ((pixel) & 0xFF);       // Red (BGR order)
                             output[index++] = (byte) ((pixel >> 8) & 0xFF);  // Green
@@ -321,10 +641,11 @@ public final class WebPCodec {
                     DataBuffer dataBuffer = image.getRaster().getDataBuffer();
                     if (dataBuffer instanceof DataBufferByte) {
                         byte[] bgrBytes = ((DataBufferByte) dataBuffer).getData();
-                        int index = 0;
+                        // Vectorized prefix (if available)
+                        int i = VectorizedPixels.bgrToRgb(bgrBytes, output) * 3;
+                        int index = i;
                         // Unroll the loop for better performance
                         int maxIndex = bgrBytes.length - 2;  // Safe limit for unrolled loop
-                        int i = 0;
 
                         // Process 3 pixels (9 bytes) at a time
                         for (; i < maxIndex - 8; i += 9) {
@@ -362,10 +683,11 @@ public final class WebPCodec {
                     if (dataBuffer instanceof DataBufferByte) {
                         byte[] abgrBytes = ((DataBufferByte) dataBuffer).getData();
                         if (hasAlpha) {
-                            int index = 0;
+                            // Vectorized prefix (if available)
+                            int i = VectorizedPixels.abgrToRgba(abgrBytes, output) * 4;
+                            int index = i;
                             // Similar loop unrolling for 4-byte pixels
                             int maxIndex = abgrBytes.length - 7;
-                            int i = 0;
 
                             // Process 2 pixels (8 bytes) at a time
                             for (; i < maxIndex; i += 8) {
@@ -391,8 +713,9 @@ public final class WebPCodec {
                             }
                         } else {
                             // When hasAlpha is false but image has 4 bytes per pixel
-                            int index = 0;
-                            for (int i = 0; i < abgrBytes.length; i += 4) {
+                            int pixels = VectorizedPixels.abgrToRgb(abgrBytes, output);
+                            int index = pixels * 3;
+                            for (int i = pixels * 4; i < abgrBytes.length; i += 4) {
                                 output[index++] = abgrBytes[i + 3];  // Red
                                 output[index++] = abgrBytes[i + 2];  // Green
                                 output[index++] = abgrBytes[i + 1];  // Blue
@@ -404,6 +727,78 @@ public final class WebPCodec {
                     break;
                 }
 
+                // Grayscale types, expanded through lookup tables that match getRGB
+                case BufferedImage.TYPE_BYTE_GRAY: {
+                    DataBuffer dataBuffer = image.getRaster().getDataBuffer();
+                    if (dataBuffer instanceof DataBufferByte
+                            && ((DataBufferByte) dataBuffer).getData().length == width * height) {
+                        byte[] grayBytes = ((DataBufferByte) dataBuffer).getData();
+                        byte[] lookup = GrayLookup.BYTE_GRAY_TO_RGB;
+                        int index = 0;
+                        for (int i = 0; i < grayBytes.length; i++) {
+                            byte value = lookup[grayBytes[i] & 0xFF];
+                            output[index++] = value;  // Red
+                            output[index++] = value;  // Green
+                            output[index++] = value;  // Blue
+                        }
+                    } else {
+                        processImageByRows(image, output, width, height, hasAlpha);
+                    }
+                    break;
+                }
+
+                case BufferedImage.TYPE_USHORT_GRAY: {
+                    DataBuffer dataBuffer = image.getRaster().getDataBuffer();
+                    if (dataBuffer instanceof DataBufferUShort
+                            && ((DataBufferUShort) dataBuffer).getData().length == width * height) {
+                        short[] grayShorts = ((DataBufferUShort) dataBuffer).getData();
+                        byte[] lookup = UShortGrayLookup.USHORT_GRAY_TO_RGB;
+                        int index = 0;
+                        for (int i = 0; i < grayShorts.length; i++) {
+                            byte value = lookup[grayShorts[i] & 0xFFFF];
+                            output[index++] = value;  // Red
+                            output[index++] = value;  // Green
+                            output[index++] = value;  // Blue
+                        }
+                    } else {
+                        processImageByRows(image, output, width, height, hasAlpha);
+                    }
+                    break;
+                }
+
+                // Palette type, the palette is expanded once and indexed per pixel
+                case BufferedImage.TYPE_BYTE_INDEXED: {
+                    DataBuffer dataBuffer = image.getRaster().getDataBuffer();
+                    if (dataBuffer instanceof DataBufferByte && image.getColorModel() instanceof IndexColorModel
+                            && ((DataBufferByte) dataBuffer).getData().length == width * height) {
+                        byte[] indexBytes = ((DataBufferByte) dataBuffer).getData();
+                        IndexColorModel colorModel = (IndexColorModel) image.getColorModel();
+                        // Indices outside the palette map to 0, as they do in IndexColorModel
+                        int[] palette = new int[Math.max(256, colorModel.getMapSize())];
+                        colorModel.getRGBs(palette);
+                        int index = 0;
+                        if (hasAlpha) {
+                            for (int i = 0; i < indexBytes.length; i++) {
+                                int argb = palette[indexBytes[i] & 0xFF];
+                                output[index++] = (byte) ((argb >> 16) & 0xFF); // Red
+                                output[index++] = (byte) ((argb >> 8) & 0xFF);  // Green
+                                output[index++] = (byte) (argb & 0xFF);         // Blue
+                                output[index++] = (byte) ((argb >> 24) & 0xFF); // Alpha
+                            }
+                        } else {
+                            for (int i = 0; i < indexBytes.length; i++) {
+                                int argb = palette[indexBytes[i] & 0xFF];
+                                output[index++] = (byte) ((argb >> 16) & 0xFF); // Red
+                                output[index++] = (byte) ((argb >> 8) & 0xFF);  // Green
+                                output[index++] = (byte) (argb & 0xFF);         // Blue
+                            }
+                        }
+                    } else {
+                        processImageByRows(image, output, width, height, hasAlpha);
+                    }
+                    break;
+                }
+
                 // Default case for all other types
                 default:
                     processImageByRows(image, output, width, height, hasAlpha);
@@ -417,7 +812,8 @@ public final class WebPCodec {
         return output;
     }
 
-    private static void processImageByRows(BufferedImage image, byte[] output, int width, int height, boolean hasAlpha) {
+    // Generic getRGB based conversion, the reference for the fast paths
+    static void processImageByRows(BufferedImage image, byte[] output, int width, int height, boolean hasAlpha) {
         // More efficient row-by-row processing
         int[] rowBuffer = new int[width];
         int index = 0;
@@ -446,4 +842,62 @@ public final class WebPCodec {
         }
     }
 
+    /**
+     * Lookup tables for 8-bit grayscale images.
+     * <p>
+     * Java treats TYPE_BYTE_GRAY samples as linear gray, so getRGB/setRGB apply a gamma conversion.
+     * The tables are computed through the same ColorModel calls, which keeps the fast paths
+     * pixel-identical to {@link #processImageByRows}.
+     */
+    private static final class GrayLookup {
+
+        // Gray sample -> sRGB component
+        static final byte[] BYTE_GRAY_TO_RGB = new byte[256];
+
+        // Limited range luma (as decoded by libwebp) -> gray sample
+        static final byte[] LUMA_TO_BYTE_GRAY = new byte[256];
+
+        static {
+            BufferedImage image = new BufferedImage(256, 1, BufferedImage.TYPE_BYTE_GRAY);
+            byte[] samples = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+
+            for (int i = 0; i < 256; i++) {
+                samples[i] = (byte) i;
+            }
+            int[] rgb = image.getRGB(0, 0, 256, 1, null, 0, 256);
+            for (int i = 0; i < 256; i++) {
+                BYTE_GRAY_TO_RGB[i] = (byte) rgb[i];
+            }
+
+            // Expand the 16-235 luma range to full range, then let the ColorModel pick the gray sample
+            for (int y = 0; y < 256; y++) {
+                int value = Math.min(255, Math.max(0, Math.round((y - 16) * 255 / 219.0f)));
+                rgb[y] = 0xFF000000 | (value << 16) | (value << 8) | value;
+            }
+            image.setRGB(0, 0, 256, 1, rgb, 0, 256);
+            System.arraycopy(samples, 0, LUMA_TO_BYTE_GRAY, 0, 256);
+        }
+    }
+
+    /**
+     * Lookup table for 16-bit grayscale images, kept separate from {@link GrayLookup}
+     * so that the 64 KiB table is only built when such an image is encoded.
+     */
+    private static final class UShortGrayLookup {
+
+        // Gray sample -> sRGB component
+        static final byte[] USHORT_GRAY_TO_RGB = new byte[65536];
+
+        static {
+            BufferedImage image = new BufferedImage(65536, 1, BufferedImage.TYPE_USHORT_GRAY);
+            short[] samples = ((DataBufferUShort) image.getRaster().getDataBuffer()).getData();
+            for (int i = 0; i < 65536; i++) {
+                samples[i] = (short) i;
+            }
+            int[] rgb = image.getRGB(0, 0, 65536, 1, null, 0, 65536);
+            for (int i = 0; i < 65536; i++) {
+                USHORT_GRAY_TO_RGB[i] = (byte) rgb[i];
+            }
+        }
+    }
 }
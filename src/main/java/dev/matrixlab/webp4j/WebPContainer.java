@@ -0,0 +1,291 @@
+package dev.matrixlab.webp4j;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Reads and rewrites the metadata chunks (EXIF, ICC profile, XMP) of a WebP file.
+ * <p>
+ * All operations work on the RIFF container only: the image bitstream is copied unchanged,
+ * so no pixels are decoded or re-encoded and no quality is lost.
+ * The general operations also take a range of a byte array, e.g. a file inside a larger buffer;
+ * only that range is copied to native memory.
+ */
+public final class WebPContainer {
+
+    // Chunk ids as defined by the WebP container specification
+    public static final String EXIF = "EXIF";
+    public static final String ICCP = "ICCP";
+    public static final String XMP = "XMP ";
+
+    private static final String[] METADATA_CHUNKS = {EXIF, ICCP, XMP};
+
+    // Static dependency: initialize the NativeWebP instance.
+    private static final NativeWebP nativeWebP;
+
+    static {
+        // Using the default constructor.
+        nativeWebP = new NativeWebP();
+    }
+
+    // Private constructor to prevent instantiation.
+    private WebPContainer() {
+        throw new AssertionError("Cannot instantiate utility class.");
+    }
+
+    /**
+     * Returns the EXIF metadata of a WebP file.
+     *
+     * @param webPData Byte array containing the WebP file
+     * @return The raw EXIF payload, or null if the file has no EXIF chunk
+     */
+    public static byte[] getExif(byte[] webPData) {
+        return getChunk(webPData, EXIF);
+    }
+
+    /**
+     * Returns the ICC color profile of a WebP file.
+     *
+     * @param webPData Byte array containing the WebP file
+     * @return The raw ICC profile, or null if the file has no ICCP chunk
+     */
+    public static byte[] getIccProfile(byte[] webPData) {
+        return getChunk(webPData, ICCP);
+    }
+
+    /**
+     * Returns the XMP metadata of a WebP file.
+     *
+     * @param webPData Byte array containing the WebP file
+     * @return The raw XMP payload, or null if the file has no XMP chunk
+     */
+    public static byte[] getXmp(byte[] webPData) {
+        return getChunk(webPData, XMP);
+    }
+
+    /**
+     * Adds or replaces the EXIF metadata of a WebP file.
+     *
+     * @param webPData Byte array containing the WebP file
+     * @param exif     The raw EXIF payload, or null to remove it
+     * @return A byte array containing the new WebP file
+     * @throws IOException If the container cannot be parsed or assembled
+     */
+    public static byte[] setExif(byte[] webPData, byte[] exif) throws IOException {
+        return setChunk(webPData, EXIF, exif);
+    }
+
+    /**
+     * Adds or replaces the ICC color profile of a WebP file.
+     *
+     * @param webPData   Byte array containing the WebP file
+     * @param iccProfile The raw ICC profile, or null to remove it
+     * @return A byte array containing the new WebP file
+     * @throws IOException If the container cannot be parsed or assembled
+     */
+    public static byte[] setIccProfile(byte[] webPData, byte[] iccProfile) throws IOException {
+        return setChunk(webPData, ICCP, iccProfile);
+    }
+
+    /**
+     * Adds or replaces the XMP metadata of a WebP file.
+     *
+     * @param webPData Byte array containing the WebP file
+     * @param xmp      The raw XMP payload, or null to remove it
+     * @return A byte array containing the new WebP file
+     * @throws IOException If the container cannot be parsed or assembled
+     */
+    public static byte[] setXmp(byte[] webPData, byte[] xmp) throws IOException {
+        return setChunk(webPData, XMP, xmp);
+    }
+
+    /**
+     * Removes the EXIF, ICC profile and XMP chunks from a WebP file.
+     *
+     * @param webPData Byte array containing the WebP file
+     * @return A byte array containing the WebP file without metadata
+     * @throws IOException If the container cannot be parsed or assembled
+     */
+    public static byte[] stripMetadata(byte[] webPData) throws IOException {
+        return removeChunks(webPData, METADATA_CHUNKS);
+    }
+
+    /**
+     * Removes the EXIF, ICC profile and XMP chunks from a WebP file stored in a range of a byte array.
+     *
+     * @param webPData Byte array containing the WebP file
+     * @param offset   Index of the first byte of the file
+     * @param length   Size of the file in bytes
+     * @return A byte array containing the WebP file without metadata
+     * @throws IOException If the container cannot be parsed or assembled
+     * @see #stripMetadata(byte[])
+     */
+    public static byte[] stripMetadata(byte[] webPData, int offset, int length) throws IOException {
+        return removeChunks(webPData, offset, length, METADATA_CHUNKS);
+    }
+
+    /**
+     * Returns the payload of a chunk.
+     *
+     * @param webPData Byte array containing the WebP file
+     * @param fourcc   The four-character chunk id, e.g. {@link #EXIF}
+     * @return The chunk payload, or null if the chunk is absent or the data is not a valid WebP file
+     */
+    public static byte[] getChunk(byte[] webPData, String fourcc) {
+        checkWebPData(webPData);
+        return getChunk(webPData, 0, webPData.length, fourcc);
+    }
+
+    /**
+     * Returns the payload of a chunk of a WebP file stored in a range of a byte array.
+     *
+     * @param webPData Byte array containing the WebP file
+     * @param offset   Index of the first byte of the file
+     * @param length   Size of the file in bytes
+     * @param fourcc   The four-character chunk id, e.g. {@link #EXIF}
+     * @return The chunk payload, or null if the chunk is absent or the data is not a valid WebP file
+     * @see #getChunk(byte[], String)
+     */
+    public static byte[] getChunk(byte[] webPData, int offset, int length, String fourcc) {
+        checkWebPData(webPData, offset, length);
+        checkFourCC(fourcc);
+        return nativeWebP.getChunk(webPData, offset, length, fourcc);
+    }
+
+    /**
+     * Adds or replaces a chunk.
+     *
+     * @param webPData Byte array containing the WebP file
+     * @param fourcc   The four-character chunk id, e.g. {@link #EXIF}
+     * @param payload  The chunk payload, or null / empty to remove the chunk
+     * @return A byte array containing the new WebP file
+     * @throws IOException If the container cannot be parsed or assembled
+     */
+    public static byte[] setChunk(byte[] webPData, String fourcc, byte[] payload) throws IOException {
+        checkWebPData(webPData);
+        return setChunk(webPData, 0, webPData.length, fourcc, payload);
+    }
+
+    /**
+     * Adds or replaces a chunk of a WebP file stored in a range of a byte array.
+     *
+     * @param webPData Byte array containing the WebP file
+     * @param offset   Index of the first byte of the file
+     * @param length   Size of the file in bytes
+     * @param fourcc   The four-character chunk id, e.g. {@link #EXIF}
+     * @param payload  The chunk payload, or null / empty to remove the chunk
+     * @return A byte array containing the new WebP file
+     * @throws IOException If the container cannot be parsed or assembled
+     * @see #setChunk(byte[], String, byte[])
+     */
+    public static byte[] setChunk(byte[] webPData, int offset, int length, String fourcc, byte[] payload)
+            throws IOException {
+        if (payload == null || payload.length == 0) {
+            return removeChunks(webPData, offset, length, fourcc);
+        }
+        checkWebPData(webPData, offset, length);
+        checkFourCC(fourcc);
+
+        byte[] result = nativeWebP.setChunk(webPData, offset, length, fourcc, payload);
+        if (result == null) {
+            throw new IOException("Failed to set WebP chunk '" + fourcc + "'.");
+        }
+        return result;
+    }
+
+    /**
+     * Removes chunks. Chunk ids that are not present in the file are ignored.
+     *
+     * @param webPData Byte array containing the WebP file
+     * @param fourccs  The four-character chunk ids
+     * @return A byte array containing the new WebP file
+     * @throws IOException If the container cannot be parsed or assembled
+     */
+    public static byte[] removeChunks(byte[] webPData, String... fourccs) throws IOException {
+        checkWebPData(webPData);
+        return removeChunks(webPData, 0, webPData.length, fourccs);
+    }
+
+    /**
+     * Removes chunks from a WebP file stored in a range of a byte array.
+     * Chunk ids that are not present in the file are ignored.
+     *
+     * @param webPData Byte array containing the WebP file
+     * @param offset   Index of the first byte of the file
+     * @param length   Size of the file in bytes
+     * @param fourccs  The four-character chunk ids
+     * @return A byte array containing the new WebP file
+     * @throws IOException If the container cannot be parsed or assembled
+     * @see #removeChunks(byte[], String...)
+     */
+    public static byte[] removeChunks(byte[] webPData, int offset, int length, String... fourccs) throws IOException {
+        checkWebPData(webPData, offset, length);
+        for (String fourcc : fourccs) {
+            checkFourCC(fourcc);
+        }
+
+        byte[] result = nativeWebP.deleteChunks(webPData, offset, length, fourccs);
+        if (result == null) {
+            throw new IOException("Failed to remove WebP chunks.");
+        }
+        return result;
+    }
+
+    /**
+     * Extracts the image of a still WebP file without any metadata.
+     * The result is always a minimal RIFF WebP file that holds only the VP8/VP8L image chunk
+     * (preceded by the ALPH chunk for lossy images with alpha), so it can be passed to
+     * {@link WebPCodec#decodeImage(byte[])}.
+     *
+     * @param webPData Byte array containing the WebP file
+     * @return A byte array containing the minimal WebP file
+     * @throws IOException If the container cannot be parsed or the image is animated
+     */
+    public static byte[] extractBitstream(byte[] webPData) throws IOException {
+        checkWebPData(webPData);
+        return extractBitstream(webPData, 0, webPData.length);
+    }
+
+    /**
+     * Extracts the image of a still WebP file stored in a range of a byte array without any metadata.
+     *
+     * @param webPData Byte array containing the WebP file
+     * @param offset   Index of the first byte of the file
+     * @param length   Size of the file in bytes
+     * @return A byte array containing the minimal WebP file
+     * @throws IOException If the container cannot be parsed or the image is animated
+     * @see #extractBitstream(byte[])
+     */
+    public static byte[] extractBitstream(byte[] webPData, int offset, int length) throws IOException {
+        checkWebPData(webPData, offset, length);
+
+        byte[] result = nativeWebP.getBitstream(webPData, offset, length);
+        if (result == null) {
+            throw new IOException("Failed to extract the WebP bitstream, the file may be animated.");
+        }
+        return result;
+    }
+
+    private static void checkWebPData(byte[] webPData) {
+        if (webPData == null || webPData.length == 0) {
+            throw new IllegalArgumentException("The input WebP data cannot be null or empty.");
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException If the data is null or the range is empty.
+     * @throws IndexOutOfBoundsException If the range is outside the array.
+     */
+    private static void checkWebPData(byte[] webPData, int offset, int length) {
+        if (webPData == null || length == 0) {
+            throw new IllegalArgumentException("The input WebP data cannot be null or empty.");
+        }
+        Objects.checkFromIndexSize(offset, length, webPData.length);
+    }
+
+    private static void checkFourCC(String fourcc) {
+        if (fourcc == null || fourcc.length() != 4) {
+            throw new IllegalArgumentException("Chunk id must be exactly four characters: '" + fourcc + "'");
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package dev.matrixlab.webp4j;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.lang.ref.Reference;
+import java.util.Objects;
+
+/**
+ * Decodes many WebP images while reusing native state.
+ * <p>
+ * The session owns a libwebp decoder configuration and growable native input and pixel buffers,
+ * which are reused once they have grown to the largest image; libwebp still allocates its decoder
+ * state on every call. Pixels are decoded directly in the layout of TYPE_INT_ARGB rasters.
+ * <p>
+ * A session is not thread-safe: use one session per worker thread. Close it when done; sessions
+ * that are not closed are released once they become unreachable.
+ */
+public final class WebPDecoderSession implements AutoCloseable {
+
+    // Static dependency: initialize the NativeWebP instance.
+    private static final NativeWebP nativeWebP;
+
+    static {
+        // Using the default constructor.
+        nativeWebP = new NativeWebP();
+    }
+
+    private final State state;
+    private final Cleaner.Cleanable cleanable;
+
+    /**
+     * Creates a session.
+     */
+    public WebPDecoderSession() {
+        long handle = nativeWebP.createDecoderSession();
+        if (handle == 0) {
+            throw new IllegalStateException("Failed to create the native WebP decoder session.");
+        }
+        this.state = new State(handle);
+        this.cleanable = NativeWebP.CLEANER.register(this, state);
+    }
+
+    /**
+     * Decodes a WebP image.
+     *
+     * @param webPData Byte array containing the WebP image
+     * @return A TYPE_INT_ARGB image if the WebP image has alpha, TYPE_INT_RGB otherwise
+     * @throws IOException If decoding fails
+     */
+    public BufferedImage decode(byte[] webPData) throws IOException {
+        if (webPData == null || webPData.length == 0) {
+            throw new IllegalArgumentException("The input WebP data cannot be null or empty.");
+        }
+        return decode(webPData, 0, webPData.length);
+    }
+
+    /**
+     * Decodes a WebP image stored in a range of a byte array. Only the range is copied
+     * into the session input buffer.
+     *
+     * @param webPData Byte array containing the WebP image
+     * @param offset   Index of the first byte of the image
+     * @param length   Size of the image data in bytes
+     * @return A TYPE_INT_ARGB image if the WebP image has alpha, TYPE_INT_RGB otherwise
+     * @throws IOException If decoding fails
+     */
+    public BufferedImage decode(byte[] webPData, int offset, int length) throws IOException {
+        if (webPData == null || length == 0) {
+            throw new IllegalArgumentException("The input WebP data cannot be null or empty.");
+        }
+        Objects.checkFromIndexSize(offset, length, webPData.length);
+
+        try {
+            long handle = state.handle();
+
+            WebPBitstreamFeatures features = new WebPBitstreamFeatures();
+            int status = nativeWebP.decodeSessionFeatures(handle, webPData, offset, length, features);
+            VP8StatusCode code = VP8StatusCode.getStatusCode(status);
+            if (code != VP8StatusCode.VP8_STATUS_OK) {
+                throw new IOException("Failed to get WebP bitstream features, error code: " + code);
+            }
+
+            int imageType = features.hasAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+            BufferedImage image = new BufferedImage(features.width, features.height, imageType);
+            int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            if (!nativeWebP.decodeSessionARGB(handle, pixels)) {
+                throw new IOException("Failed to decode WebP data in session.");
+            }
+            return image;
+        } finally {
+            // Keep the session (and its native state) alive until the native calls have returned
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    /**
+     * Releases the native state. Further calls to {@code decode} throw IllegalStateException.
+     */
+    @Override
+    public void close() {
+        cleanable.clean();
+    }
+
+    /**
+     * Holds the native handle. Must not reference the session, so that the session can become unreachable.
+     */
+    private static final class State implements Runnable {
+
+        private long handle;
+
+        State(long handle) {
+            this.handle = handle;
+        }
+
+        long handle() {
+            if (handle == 0) {
+                throw new IllegalStateException("The WebP decoder session is closed.");
+            }
+            return handle;
+        }
+
+        @Override
+        public void run() {
+            // Runs at most once, either from close() or from the cleaner thread
+            nativeWebP.destroyDecoderSession(handle);
+            handle = 0;
+        }
+    }
+}
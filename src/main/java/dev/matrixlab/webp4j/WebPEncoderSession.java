@@ -0,0 +1,189 @@
+package dev.matrixlab.webp4j;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.lang.ref.Reference;
+
+/**
+ * Encodes many images with the same settings while reusing native state.
+ * <p>
+ * The session owns a libwebp encoder configuration, a {@code WebPPicture} and a growable output
+ * buffer. The ARGB picture is only reallocated when the image size changes, and the output buffer
+ * only grows, so both are reused across a series of same-sized images. libwebp still allocates
+ * its encoder state on every call and, for lossy encoding, the YUV planes converted from the
+ * ARGB picture.
+ * <p>
+ * A session is not thread-safe: use one session per worker thread. Close it when done; sessions
+ * that are not closed are released once they become unreachable.
+ *
+ * <pre>{@code
+ * try (WebPEncoderSession session = new WebPEncoderSession(80, false)) {
+ *     for (BufferedImage image : images) {
+ *         byte[] webP = session.encode(image);
+ *     }
+ * }
+ * }</pre>
+ */
+public final class WebPEncoderSession implements AutoCloseable {
+
+    // Static dependency: initialize the NativeWebP instance.
+    private static final NativeWebP nativeWebP;
+
+    static {
+        // Using the default constructor.
+        nativeWebP = new NativeWebP();
+    }
+
+    private final State state;
+    private final Cleaner.Cleanable cleanable;
+
+    // Reused for images whose pixels cannot be passed to the native code directly
+    private int[] scratch;
+
+    /**
+     * Creates a session using compression method 4 (the libwebp default).
+     *
+     * @param quality  Quality factor (0-100), ignored for lossless encoding
+     * @param lossless Whether to encode losslessly
+     */
+    public WebPEncoderSession(float quality, boolean lossless) {
+        this(quality, lossless, 4);
+    }
+
+    /**
+     * Creates a session.
+     *
+     * @param quality  Quality factor (0-100), ignored for lossless encoding
+     * @param lossless Whether to encode losslessly
+     * @param method   Compression method (0 = fast, 6 = slower but better)
+     */
+    public WebPEncoderSession(float quality, boolean lossless, int method) {
+        if (quality < 0 || quality > 100) {
+            throw new IllegalArgumentException("Quality must be between 0 and 100: " + quality);
+        }
+        if (method < 0 || method > 6) {
+            throw new IllegalArgumentException("Method must be between 0 and 6: " + method);
+        }
+
+        long handle = nativeWebP.createEncoderSession(quality, lossless, method);
+        if (handle == 0) {
+            throw new IllegalStateException("Failed to create the native WebP encoder session.");
+        }
+        this.state = new State(handle);
+        this.cleanable = NativeWebP.CLEANER.register(this, state);
+    }
+
+    /**
+     * Encodes a BufferedImage. TYPE_INT_RGB and TYPE_INT_ARGB images are passed to the native
+     * code without an intermediate copy; other types are converted through a reused buffer.
+     *
+     * @param image The image to encode
+     * @return A byte array containing the encoded WebP image
+     * @throws IOException If encoding fails
+     */
+    public byte[] encode(BufferedImage image) throws IOException {
+        if (image == null) {
+            throw new IllegalArgumentException("The input BufferedImage cannot be null.");
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean hasAlpha = image.getColorModel().hasAlpha();
+
+        int type = image.getType();
+        WritableRaster raster = image.getRaster();
+        DataBuffer dataBuffer = raster.getDataBuffer();
+        SampleModel sampleModel = raster.getSampleModel();
+        if ((type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB)
+                && dataBuffer instanceof DataBufferInt
+                && sampleModel instanceof SinglePixelPackedSampleModel) {
+            // The raster may be a sub-image of a larger buffer
+            SinglePixelPackedSampleModel packed = (SinglePixelPackedSampleModel) sampleModel;
+            int offset = dataBuffer.getOffset()
+                    + packed.getOffset(-raster.getSampleModelTranslateX(), -raster.getSampleModelTranslateY());
+            int[] pixels = ((DataBufferInt) dataBuffer).getData();
+            return encodePixels(pixels, offset, width, height, packed.getScanlineStride(), hasAlpha);
+        }
+
+        int pixelCount = width * height;
+        if (scratch == null || scratch.length < pixelCount) {
+            scratch = new int[pixelCount];
+        }
+        image.getRGB(0, 0, width, height, scratch, 0, width);
+        return encodePixels(scratch, 0, width, height, width, hasAlpha);
+    }
+
+    /**
+     * Encodes 0xAARRGGBB pixels (the layout of TYPE_INT_ARGB) stored row by row without padding.
+     *
+     * @param argb     The pixels
+     * @param width    Image width in pixels
+     * @param height   Image height in pixels
+     * @param hasAlpha Whether the alpha bytes are meaningful; if not, the image is encoded as opaque
+     * @return A byte array containing the encoded WebP image
+     * @throws IOException If encoding fails
+     */
+    public byte[] encode(int[] argb, int width, int height, boolean hasAlpha) throws IOException {
+        if (argb == null) {
+            throw new IllegalArgumentException("The input pixel array cannot be null.");
+        }
+        if (width <= 0 || height <= 0 || (long) width * height > argb.length) {
+            throw new IllegalArgumentException("Invalid image size " + width + "x" + height
+                    + " for " + argb.length + " pixels.");
+        }
+        return encodePixels(argb, 0, width, height, width, hasAlpha);
+    }
+
+    private byte[] encodePixels(int[] argb, int offset, int width, int height, int stride, boolean hasAlpha)
+            throws IOException {
+        try {
+            byte[] result = nativeWebP.encodeSessionARGB(state.handle(), argb, offset, width, height, stride, hasAlpha);
+            if (result == null) {
+                throw new IOException("WebP session encoding failed.");
+            }
+            return result;
+        } finally {
+            // Keep the session (and its native state) alive until the native call has returned
+            Reference.reachabilityFence(this);
+        }
+    }
+
+    /**
+     * Releases the native state. Further calls to {@code encode} throw IllegalStateException.
+     */
+    @Override
+    public void close() {
+        cleanable.clean();
+    }
+
+    /**
+     * Holds the native handle. Must not reference the session, so that the session can become unreachable.
+     */
+    private static final class State implements Runnable {
+
+        private long handle;
+
+        State(long handle) {
+            this.handle = handle;
+        }
+
+        long handle() {
+            if (handle == 0) {
+                throw new IllegalStateException("The WebP encoder session is closed.");
+            }
+            return handle;
+        }
+
+        @Override
+        public void run() {
+            // Runs at most once, either from close() or from the cleaner thread
+            nativeWebP.destroyEncoderSession(handle);
+            handle = 0;
+        }
+    }
+}
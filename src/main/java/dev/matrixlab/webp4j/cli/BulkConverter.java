@@ -0,0 +1,285 @@
+package dev.matrixlab.webp4j.cli;
+
+import dev.matrixlab.webp4j.WebPCodec;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts all PNG and JPEG files below a directory to WebP, mirroring the directory structure.
+ * The source extension is kept, {@code a.png} becomes {@code a.png.webp}, so that sources that
+ * only differ in their extension do not overwrite each other.
+ * <p>
+ * Sources are decoded with ImageIO and encoded with {@link WebPCodec} on a fixed pool of workers.
+ * The memory held by images in flight is bounded by a semaphore: every worker reads the image
+ * dimensions from the file header and reserves the estimated decode + encode footprint before
+ * decoding the pixels.
+ * <p>
+ * Converted files are recorded in a {@link ConversionManifest} per output directory, which is
+ * loaded when the walker enters the source directory and dropped when it leaves it.
+ */
+final class BulkConverter {
+
+    // Estimated peak bytes per pixel: decoded raster (up to 4), RGB(A) copy (up to 4) and the native YUV picture
+    private static final int BYTES_PER_PIXEL_IN_FLIGHT = 10;
+
+    // Memory permits are counted in KiB, so that the limit fits into an int
+    private static final int PERMIT_BYTES = 1024;
+
+    // Files submitted per worker that may wait for a free worker
+    private static final int QUEUED_PER_WORKER = 4;
+
+    private final Path inputDir;
+    private final Path outputDir;
+    private final float quality;
+    private final boolean lossless;
+    private final int workers;
+    private final int memoryPermits;
+    private final boolean force;
+    private final PrintStream log;
+
+    private final Semaphore memory;
+    private final ConversionStats stats = new ConversionStats();
+
+    BulkConverter(Path inputDir, Path outputDir, float quality, boolean lossless, int workers,
+                  long maxMemoryBytes, boolean force, PrintStream log) {
+        this.inputDir = inputDir;
+        this.outputDir = outputDir;
+        this.quality = quality;
+        this.lossless = lossless;
+        this.workers = workers;
+        this.memoryPermits = (int) Math.min(Integer.MAX_VALUE, Math.max(1, maxMemoryBytes / PERMIT_BYTES));
+        this.force = force;
+        this.log = log;
+        this.memory = new Semaphore(memoryPermits, true);
+    }
+
+    /**
+     * Runs the conversion, printing progress reports while it is running.
+     *
+     * @param progressSeconds Interval of the progress reports, or 0 to disable them
+     * @return The statistics of this run
+     * @throws IOException If the input directory cannot be walked
+     */
+    ConversionStats run(int progressSeconds) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        // Bounds the files submitted but not yet finished, so that the walker does not list millions of
+        // files ahead of the workers; when all slots are taken, the walker blocks until a file completes
+        Semaphore slots = new Semaphore(workers * (QUEUED_PER_WORKER + 1));
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "webp4j-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (progressSeconds > 0) {
+            reporter.scheduleAtFixedRate(() -> log.println(stats.progress()),
+                    progressSeconds, progressSeconds, TimeUnit.SECONDS);
+        }
+
+        try {
+            Files.walkFileTree(inputDir, new SimpleFileVisitor<Path>() {
+                // Manifests of the directories from the input directory down to the current one
+                private final Deque<ConversionManifest> manifests = new ArrayDeque<>();
+
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    // Do not descend into the output when it is located below the input
+                    if (dir.equals(outputDir) && !dir.equals(inputDir)) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    Path targetDir = outputDir.resolve(inputDir.relativize(dir).toString());
+                    ConversionManifest manifest;
+                    try {
+                        manifest = ConversionManifest.load(targetDir);
+                    } catch (IOException e) {
+                        // The files of this directory are still skipped if their outputs are up to date
+                        log.println("Cannot read the manifest of " + targetDir + ": " + e.getMessage());
+                        manifest = ConversionManifest.empty(targetDir);
+                    }
+                    manifests.push(manifest);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                    manifests.pop().unload();
+                    return super.postVisitDirectory(dir, e);
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile() && isSupported(file)) {
+                        ConversionManifest manifest = manifests.peek();
+                        String fileName = file.getFileName().toString();
+                        Path target = outputDir.resolve(toOutputPath(inputDir.relativize(file).toString()));
+                        // Entries are only trusted while their output exists, so deleted outputs are converted again
+                        if (!force && manifest.isCompleted(fileName, attrs) && Files.exists(target)) {
+                            stats.skipped.increment();
+                        } else {
+                            try {
+                                slots.acquire();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                return FileVisitResult.TERMINATE;
+                            }
+                            executor.execute(() -> {
+                                try {
+                                    convert(file, attrs, target, manifest);
+                                } finally {
+                                    slots.release();
+                                }
+                            });
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    log.println("Cannot read " + file + ": " + e.getMessage());
+                    stats.failed.increment();
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } finally {
+            executor.shutdown();
+            awaitTermination(executor);
+            reporter.shutdownNow();
+        }
+        return stats;
+    }
+
+    private void convert(Path source, BasicFileAttributes attrs, Path target, ConversionManifest manifest) {
+        String fileName = source.getFileName().toString();
+        try {
+            if (!force && isUpToDate(target, attrs.lastModifiedTime())) {
+                stats.skipped.increment();
+                manifest.markCompleted(fileName, attrs);
+                return;
+            }
+
+            int reserved = 0;
+            try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+                Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+                if (readers == null || !readers.hasNext()) {
+                    throw new IOException("Unsupported image format");
+                }
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(input, true, true);
+
+                    // Reserve memory based on the header, before the pixels are decoded
+                    long waitStart = System.nanoTime();
+                    int permits = permitsFor((long) reader.getWidth(0) * reader.getHeight(0));
+                    memory.acquire(permits);
+                    reserved = permits;
+                    long decodeStart = System.nanoTime();
+                    stats.waitNanos.add(decodeStart - waitStart);
+
+                    BufferedImage image = reader.read(0);
+                    long encodeStart = System.nanoTime();
+                    stats.decodeNanos.add(encodeStart - decodeStart);
+
+                    byte[] webP = lossless
+                            ? WebPCodec.encodeLosslessImage(image)
+                            : WebPCodec.encodeImage(image, quality);
+                    image = null;
+                    long writeStart = System.nanoTime();
+                    stats.encodeNanos.add(writeStart - encodeStart);
+
+                    write(target, webP);
+                    stats.writeNanos.add(System.nanoTime() - writeStart);
+
+                    stats.bytesIn.add(attrs.size());
+                    stats.bytesOut.add(webP.length);
+                } finally {
+                    reader.dispose();
+                }
+            } finally {
+                memory.release(reserved);
+            }
+
+            manifest.markCompleted(fileName, attrs);
+            stats.converted.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stats.failed.increment();
+        } catch (Exception | OutOfMemoryError | LinkageError e) {
+            log.println("Failed to convert " + source + ": " + e);
+            stats.failed.increment();
+        }
+    }
+
+    private int permitsFor(long pixels) {
+        long bytes = pixels * BYTES_PER_PIXEL_IN_FLIGHT;
+        long permits = (bytes + PERMIT_BYTES - 1) / PERMIT_BYTES;
+        // An image larger than the limit still runs, but alone
+        return (int) Math.max(1, Math.min(permits, memoryPermits));
+    }
+
+    private static boolean isUpToDate(Path target, FileTime sourceTime) throws IOException {
+        return Files.exists(target) && Files.getLastModifiedTime(target).compareTo(sourceTime) >= 0;
+    }
+
+    private static void write(Path target, byte[] webP) throws IOException {
+        Path parent = target.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        // Write to a temporary file first, so that an interrupted run never leaves a truncated output behind
+        Path temp = target.resolveSibling(target.getFileName() + ".part");
+        Files.write(temp, webP);
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void awaitTermination(ExecutorService executor) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static boolean isSupported(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".png") || name.endsWith(".jpg") || name.endsWith(".jpeg");
+    }
+
+    static String toOutputPath(String relativePath) {
+        return relativePath + ".webp";
+    }
+}
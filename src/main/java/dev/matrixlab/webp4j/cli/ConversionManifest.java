@@ -0,0 +1,180 @@
+package dev.matrixlab.webp4j.cli;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The source files of one directory that have been converted, stored next to their outputs in
+ * {@code <output-dir>/<relative dir>/.webp4j-manifest}, one line per file:
+ * {@code <size>\t<last modified millis>\t<file name>}.
+ * <p>
+ * A line is only appended once the output file is complete, so after an interruption the
+ * conversion can resume without re-encoding the files that are already done. A source only
+ * counts as done while its size and modification time match the recorded ones, so sources
+ * edited after their conversion are converted again.
+ * <p>
+ * Only the manifests of the directories being walked are held in memory, so the memory needed
+ * does not grow with the size of the tree. A manifest with duplicate entries, lines that cannot
+ * be parsed or a partially written last line is compacted when it is loaded.
+ */
+final class ConversionManifest {
+
+    static final String FILE_NAME = ".webp4j-manifest";
+
+    private final Path file;
+
+    // File name -> "<size>\t<last modified millis>" of the source when it was converted, read by the walker only
+    private Map<String, String> completed;
+
+    private ConversionManifest(Path file, Map<String, String> completed) {
+        this.file = file;
+        this.completed = completed;
+    }
+
+    /**
+     * @param outputDirectory Output directory of the source directory
+     * @return An empty manifest, used when the existing one cannot be read
+     */
+    static ConversionManifest empty(Path outputDirectory) {
+        return new ConversionManifest(outputDirectory.resolve(FILE_NAME), new HashMap<>());
+    }
+
+    /**
+     * Loads the manifest of an output directory, compacting it if needed.
+     *
+     * @param outputDirectory Output directory of the source directory, which may not exist yet
+     * @return The manifest, empty if the directory has none
+     * @throws IOException If the manifest exists but cannot be read or compacted
+     */
+    static ConversionManifest load(Path outputDirectory) throws IOException {
+        Path file = outputDirectory.resolve(FILE_NAME);
+        if (!Files.exists(file)) {
+            return empty(outputDirectory);
+        }
+
+        Map<String, String> completed = new HashMap<>();
+        int lines = 0;
+        String last = null;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines++;
+                // A later entry for the same file replaces the earlier one
+                String[] fields = line.split("\t", 3);
+                if (fields.length == 3 && isNumber(fields[0]) && isNumber(fields[1]) && !fields[2].isEmpty()) {
+                    completed.put(fields[2], fields[0] + '\t' + fields[1]);
+                }
+                last = line;
+            }
+        }
+        boolean truncated = last != null && !endsWithNewline(file);
+        if (truncated) {
+            // Cut off by a killed process, so it may hold a wrong size or time
+            String[] fields = last.split("\t", 3);
+            if (fields.length == 3) {
+                completed.remove(fields[2]);
+            }
+        }
+
+        if (truncated || lines > completed.size()) {
+            compact(file, completed);
+        }
+        return new ConversionManifest(file, completed);
+    }
+
+    private static boolean isNumber(String field) {
+        if (field.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < field.length(); i++) {
+            if (field.charAt(i) < '0' || field.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean endsWithNewline(Path file) throws IOException {
+        try (SeekableByteChannel channel = Files.newByteChannel(file)) {
+            if (channel.size() == 0) {
+                return true;
+            }
+            ByteBuffer lastByte = ByteBuffer.allocate(1);
+            channel.position(channel.size() - 1).read(lastByte);
+            return lastByte.get(0) == '\n';
+        }
+    }
+
+    // Rewrites the manifest with one line per entry, replacing the old file only once the new one is complete
+    private static void compact(Path file, Map<String, String> completed) throws IOException {
+        Path temp = file.resolveSibling(FILE_NAME + ".part");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, String> entry : completed.entrySet()) {
+                writer.write(entry.getValue());
+                writer.write('\t');
+                writer.write(entry.getKey());
+                writer.write('\n');
+            }
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String version(BasicFileAttributes attrs) {
+        return attrs.size() + "\t" + attrs.lastModifiedTime().toMillis();
+    }
+
+    /**
+     * @return The number of entries loaded from earlier runs.
+     */
+    int size() {
+        return completed.size();
+    }
+
+    /**
+     * @param fileName Name of the source file
+     * @param attrs    Current attributes of the source file
+     * @return True if the file was converted by an earlier run and has not changed since.
+     */
+    boolean isCompleted(String fileName, BasicFileAttributes attrs) {
+        return version(attrs).equals(completed.get(fileName));
+    }
+
+    /**
+     * Drops the loaded entries once the directory has been walked. Files still being converted
+     * can be recorded afterwards.
+     */
+    void unload() {
+        completed = Collections.emptyMap();
+    }
+
+    /**
+     * Records a converted file. Called concurrently by the workers.
+     *
+     * @param fileName Name of the source file
+     * @param attrs    Attributes of the source file that was converted
+     * @throws IOException If the entry cannot be written
+     */
+    synchronized void markCompleted(String fileName, BasicFileAttributes attrs) throws IOException {
+        // Opened per entry, so that no file handle outlives the directory; the write is one line, so a
+        // killed process loses at most the files in flight
+        String line = version(attrs) + '\t' + fileName + '\n';
+        Files.write(file, line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
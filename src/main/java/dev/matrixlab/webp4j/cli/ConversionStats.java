@@ -0,0 +1,76 @@
+package dev.matrixlab.webp4j.cli;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and per-phase timings of a bulk conversion, updated concurrently by the workers.
+ * Phase times are summed over all workers, so with N workers they can add up to N times the wall time.
+ */
+final class ConversionStats {
+
+    final LongAdder converted = new LongAdder();
+    final LongAdder skipped = new LongAdder();
+    final LongAdder failed = new LongAdder();
+
+    // Source and WebP bytes of converted files
+    final LongAdder bytesIn = new LongAdder();
+    final LongAdder bytesOut = new LongAdder();
+
+    // Nanoseconds spent per phase
+    final LongAdder waitNanos = new LongAdder();
+    final LongAdder decodeNanos = new LongAdder();
+    final LongAdder encodeNanos = new LongAdder();
+    final LongAdder writeNanos = new LongAdder();
+
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * @return A one-line progress report.
+     */
+    String progress() {
+        double seconds = elapsedSeconds();
+        long done = converted.sum();
+        return String.format(Locale.ROOT, "%,d converted, %,d skipped, %,d failed, %.1f images/s, %.1f MB/s",
+                done, skipped.sum(), failed.sum(), done / seconds, bytesIn.sum() / 1e6 / seconds);
+    }
+
+    /**
+     * @return A multi-line summary with throughput and per-phase timings.
+     */
+    String summary() {
+        double seconds = elapsedSeconds();
+        long done = converted.sum();
+        long in = bytesIn.sum();
+        long out = bytesOut.sum();
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "Converted: %,d  Skipped: %,d  Failed: %,d%n",
+                done, skipped.sum(), failed.sum()));
+        sb.append(String.format(Locale.ROOT, "Elapsed:   %.1f s%n", seconds));
+        sb.append(String.format(Locale.ROOT, "Throughput: %.1f images/s, %.1f MB/s in, %.1f MB/s out%n",
+                done / seconds, in / 1e6 / seconds, out / 1e6 / seconds));
+        if (in > 0) {
+            sb.append(String.format(Locale.ROOT, "Size:      %.1f MB -> %.1f MB (%.1f%%)%n",
+                    in / 1e6, out / 1e6, 100.0 * out / in));
+        }
+        sb.append("Phase timings (summed over workers, average per converted image):").append(System.lineSeparator());
+        appendPhase(sb, "memory wait", waitNanos.sum(), done);
+        appendPhase(sb, "decode", decodeNanos.sum(), done);
+        appendPhase(sb, "encode", encodeNanos.sum(), done);
+        appendPhase(sb, "write", writeNanos.sum(), done);
+        return sb.toString();
+    }
+
+    private static void appendPhase(StringBuilder sb, String name, long nanos, long count) {
+        double totalSeconds = nanos / 1e9;
+        double averageMillis = count > 0 ? TimeUnit.NANOSECONDS.toMicros(nanos / count) / 1e3 : 0;
+        sb.append(String.format(Locale.ROOT, "  %-12s %10.1f s  %8.2f ms%n", name, totalSeconds, averageMillis));
+    }
+
+    private double elapsedSeconds() {
+        // Avoid division by zero right after the start
+        return Math.max(System.nanoTime() - startNanos, 1) / 1e9;
+    }
+}
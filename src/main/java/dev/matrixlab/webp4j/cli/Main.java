@@ -0,0 +1,144 @@
+package dev.matrixlab.webp4j.cli;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Command line entry point for bulk PNG/JPEG to WebP conversion.
+ * <p>
+ * Packaged as the executable {@code webp4j-<version>-cli.jar}:
+ * <pre>
+ * java -jar webp4j-cli.jar [options] &lt;input-dir&gt; &lt;output-dir&gt;
+ * </pre>
+ */
+public final class Main {
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: java -jar webp4j-cli.jar [options] <input-dir> <output-dir>",
+            "",
+            "Converts all PNG and JPEG files below <input-dir> to WebP files below <output-dir>,",
+            "keeping the directory structure and the source extension (a.png -> a.png.webp).",
+            "",
+            "Options:",
+            "  -q, --quality <0-100>   Lossy quality (default 80)",
+            "  --lossless              Encode losslessly",
+            "  -j, --workers <n>       Number of parallel workers (default: available processors)",
+            "  --max-memory <MiB>      Memory reserved for images in flight (default: half of the max heap)",
+            "  --progress <seconds>    Progress report interval, 0 to disable (default 10)",
+            "  --force                 Convert all files, even if the output is up to date",
+            "  -h, --help              Show this help");
+
+    // Private constructor to prevent instantiation.
+    private Main() {
+        throw new AssertionError("Cannot instantiate utility class.");
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    /**
+     * Runs the converter.
+     *
+     * @param args Command line arguments
+     * @return 0 on success, 1 if any file failed to convert, 2 on invalid arguments
+     */
+    static int run(String[] args) {
+        float quality = 80.0f;
+        boolean lossless = false;
+        int workers = Runtime.getRuntime().availableProcessors();
+        long maxMemory = Runtime.getRuntime().maxMemory() / 2;
+        int progressSeconds = 10;
+        boolean force = false;
+        Path inputDir = null;
+        Path outputDir = null;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "-q":
+                    case "--quality":
+                        quality = Float.parseFloat(value(args, ++i, arg));
+                        if (quality < 0 || quality > 100) {
+                            throw new IllegalArgumentException("Quality must be between 0 and 100: " + quality);
+                        }
+                        break;
+                    case "--lossless":
+                        lossless = true;
+                        break;
+                    case "-j":
+                    case "--workers":
+                        workers = Integer.parseInt(value(args, ++i, arg));
+                        if (workers < 1) {
+                            throw new IllegalArgumentException("Workers must be at least 1: " + workers);
+                        }
+                        break;
+                    case "--max-memory":
+                        maxMemory = Long.parseLong(value(args, ++i, arg)) * 1024 * 1024;
+                        if (maxMemory <= 0) {
+                            throw new IllegalArgumentException("Max memory must be positive.");
+                        }
+                        break;
+                    case "--progress":
+                        progressSeconds = Integer.parseInt(value(args, ++i, arg));
+                        break;
+                    case "--force":
+                        force = true;
+                        break;
+                    case "-h":
+                    case "--help":
+                        System.out.println(USAGE);
+                        return 0;
+                    default:
+                        if (arg.startsWith("-")) {
+                            throw new IllegalArgumentException("Unknown option: " + arg);
+                        } else if (inputDir == null) {
+                            inputDir = Paths.get(arg);
+                        } else if (outputDir == null) {
+                            outputDir = Paths.get(arg);
+                        } else {
+                            throw new IllegalArgumentException("Unexpected argument: " + arg);
+                        }
+                }
+            }
+            if (inputDir == null || outputDir == null) {
+                throw new IllegalArgumentException("Input and output directories are required.");
+            }
+            if (!Files.isDirectory(inputDir)) {
+                throw new IllegalArgumentException("Input directory does not exist: " + inputDir);
+            }
+        } catch (IllegalArgumentException e) {
+            // Includes NumberFormatException
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+
+        inputDir = inputDir.toAbsolutePath().normalize();
+        outputDir = outputDir.toAbsolutePath().normalize();
+        System.err.printf("Converting %s -> %s with %d workers, %d MiB in flight%n",
+                inputDir, outputDir, workers, maxMemory / (1024 * 1024));
+
+        try {
+            BulkConverter converter = new BulkConverter(inputDir, outputDir, quality, lossless, workers,
+                    maxMemory, force, System.err);
+            ConversionStats stats = converter.run(progressSeconds);
+
+            System.out.print(stats.summary());
+            return stats.failed.sum() > 0 ? 1 : 0;
+        } catch (IOException e) {
+            System.err.println("Conversion aborted: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + option);
+        }
+        return args[index];
+    }
+}
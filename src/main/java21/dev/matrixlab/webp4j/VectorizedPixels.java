@@ -0,0 +1,211 @@
+package dev.matrixlab.webp4j;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * SIMD pixel swizzles used by {@link WebPCodec}, Java 21+ version.
+ * <p>
+ * The kernels are built on the {@code jdk.incubator.vector} API. They are only used when the module
+ * has been resolved ({@code --add-modules jdk.incubator.vector}) and can be switched off with
+ * {@code -Ddev.matrixlab.webp4j.vector=false}; otherwise every method converts nothing and
+ * {@link WebPCodec} falls back to its scalar loops.
+ * <p>
+ * Every method converts a prefix of the input and returns the number of pixels it converted;
+ * the caller finishes the remaining pixels with its scalar loop.
+ */
+final class VectorizedPixels {
+
+    private static final boolean AVAILABLE = isVectorModuleEnabled() && Kernels.isSupported();
+
+    // Private constructor to prevent instantiation.
+    private VectorizedPixels() {
+        throw new AssertionError("Cannot instantiate utility class.");
+    }
+
+    /**
+     * @return True if the vectorized implementation is in use.
+     */
+    static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    // 0xAARRGGBB ints -> R, G, B, A bytes
+    static int intArgbToRgba(int[] src, byte[] dst) {
+        return AVAILABLE ? Kernels.intArgbToRgba(src, dst) : 0;
+    }
+
+    // 0x..RRGGBB ints -> R, G, B bytes
+    static int intRgbToRgb(int[] src, byte[] dst) {
+        return AVAILABLE ? Kernels.intToRgb(src, dst, Kernels.INT_RGB_TO_RGB) : 0;
+    }
+
+    // 0x..BBGGRR ints -> R, G, B bytes
+    static int intBgrToRgb(int[] src, byte[] dst) {
+        return AVAILABLE ? Kernels.intToRgb(src, dst, Kernels.INT_BGR_TO_RGB) : 0;
+    }
+
+    // B, G, R bytes -> R, G, B bytes
+    static int bgrToRgb(byte[] src, byte[] dst) {
+        return AVAILABLE ? Kernels.bgrToRgb(src, dst) : 0;
+    }
+
+    // A, B, G, R bytes -> R, G, B, A bytes
+    static int abgrToRgba(byte[] src, byte[] dst) {
+        return AVAILABLE ? Kernels.abgrToRgba(src, dst) : 0;
+    }
+
+    // A, B, G, R bytes -> R, G, B bytes
+    static int abgrToRgb(byte[] src, byte[] dst) {
+        return AVAILABLE ? Kernels.abgrToRgb(src, dst) : 0;
+    }
+
+    // R, G, B, A bytes -> 0xAARRGGBB ints
+    static int rgbaToIntArgb(byte[] src, int[] dst) {
+        return AVAILABLE ? Kernels.rgbaToIntArgb(src, dst) : 0;
+    }
+
+    // R, G, B bytes -> 0xFFRRGGBB ints
+    static int rgbToIntArgb(byte[] src, int[] dst) {
+        return AVAILABLE ? Kernels.rgbToIntArgb(src, dst) : 0;
+    }
+
+    private static boolean isVectorModuleEnabled() {
+        if (!Boolean.parseBoolean(System.getProperty("dev.matrixlab.webp4j.vector", "true"))) {
+            return false;
+        }
+        // The incubator module is only visible when it was added on the command line
+        return ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    }
+
+    /**
+     * The actual kernels. Kept in a separate class so that the vector classes are only
+     * loaded once {@link #isVectorModuleEnabled()} has confirmed they are present.
+     * <p>
+     * All kernels work on 128-bit vectors (16 bytes / 4 ints): byte shuffles within 128 bits
+     * map directly to PSHUFB (SSSE3/AVX2) and TBL (NEON). Ints are viewed as bytes in
+     * little-endian order, so 0xAARRGGBB appears as B, G, R, A.
+     */
+    private static final class Kernels {
+
+        private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_128;
+        private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_128;
+
+        // Bytes and pixels per vector
+        private static final int BYTE_LANES = BYTES.length();
+        private static final int INT_LANES = INTS.length();
+
+        // B, G, R, A <-> R, G, B, A (swapping red and blue works in both directions)
+        static final VectorShuffle<Byte> SWAP_RED_BLUE = shuffle(k -> (k & 3) == 3 ? k : (k & ~3) + 2 - (k & 3));
+
+        // B, G, R, x -> R, G, B (4 pixels into the first 12 bytes)
+        static final VectorShuffle<Byte> INT_RGB_TO_RGB = shuffle(k -> k < 12 ? 4 * (k / 3) + 2 - k % 3 : 0);
+
+        // R, G, B, x -> R, G, B (4 pixels into the first 12 bytes)
+        static final VectorShuffle<Byte> INT_BGR_TO_RGB = shuffle(k -> k < 12 ? 4 * (k / 3) + k % 3 : 0);
+
+        // B, G, R -> R, G, B (5 pixels, the 16th byte is left in place)
+        static final VectorShuffle<Byte> BGR_TO_RGB = shuffle(k -> k < 15 ? 3 * (k / 3) + 2 - k % 3 : k);
+
+        // A, B, G, R -> R, G, B, A
+        static final VectorShuffle<Byte> ABGR_TO_RGBA = shuffle(k -> (k & ~3) + 3 - (k & 3));
+
+        // A, B, G, R -> R, G, B (4 pixels into the first 12 bytes)
+        static final VectorShuffle<Byte> ABGR_TO_RGB = shuffle(k -> k < 12 ? 4 * (k / 3) + 3 - k % 3 : 0);
+
+        // R, G, B -> B, G, R, x (4 pixels from the first 12 bytes)
+        static final VectorShuffle<Byte> RGB_TO_INT = shuffle(k -> (k & 3) < 3 ? 3 * (k / 4) + 2 - (k & 3) : 0);
+
+        private static final IntVector OPAQUE = IntVector.broadcast(INTS, 0xFF000000);
+
+        static boolean isSupported() {
+            return ByteVector.SPECIES_PREFERRED.vectorBitSize() >= 128;
+        }
+
+        static int intArgbToRgba(int[] src, byte[] dst) {
+            int i = 0;
+            for (; i + INT_LANES <= src.length && 4 * i + BYTE_LANES <= dst.length; i += INT_LANES) {
+                IntVector.fromArray(INTS, src, i)
+                        .reinterpretAsBytes()
+                        .rearrange(SWAP_RED_BLUE)
+                        .intoArray(dst, 4 * i);
+            }
+            return i;
+        }
+
+        static int intToRgb(int[] src, byte[] dst, VectorShuffle<Byte> shuffle) {
+            int i = 0;
+            // Each store writes 16 bytes of which 12 are valid, the rest is overwritten by the next store
+            for (; i + INT_LANES <= src.length && 3 * i + BYTE_LANES <= dst.length; i += INT_LANES) {
+                IntVector.fromArray(INTS, src, i)
+                        .reinterpretAsBytes()
+                        .rearrange(shuffle)
+                        .intoArray(dst, 3 * i);
+            }
+            return i;
+        }
+
+        static int bgrToRgb(byte[] src, byte[] dst) {
+            int i = 0;
+            // 5 pixels (15 bytes) per iteration
+            for (; 3 * i + BYTE_LANES <= src.length && 3 * i + BYTE_LANES <= dst.length; i += 5) {
+                ByteVector.fromArray(BYTES, src, 3 * i)
+                        .rearrange(BGR_TO_RGB)
+                        .intoArray(dst, 3 * i);
+            }
+            return i;
+        }
+
+        static int abgrToRgba(byte[] src, byte[] dst) {
+            int i = 0;
+            for (; 4 * i + BYTE_LANES <= src.length && 4 * i + BYTE_LANES <= dst.length; i += INT_LANES) {
+                ByteVector.fromArray(BYTES, src, 4 * i)
+                        .rearrange(ABGR_TO_RGBA)
+                        .intoArray(dst, 4 * i);
+            }
+            return i;
+        }
+
+        static int abgrToRgb(byte[] src, byte[] dst) {
+            int i = 0;
+            for (; 4 * i + BYTE_LANES <= src.length && 3 * i + BYTE_LANES <= dst.length; i += INT_LANES) {
+                ByteVector.fromArray(BYTES, src, 4 * i)
+                        .rearrange(ABGR_TO_RGB)
+                        .intoArray(dst, 3 * i);
+            }
+            return i;
+        }
+
+        static int rgbaToIntArgb(byte[] src, int[] dst) {
+            int i = 0;
+            for (; 4 * i + BYTE_LANES <= src.length && i + INT_LANES <= dst.length; i += INT_LANES) {
+                ByteVector.fromArray(BYTES, src, 4 * i)
+                        .rearrange(SWAP_RED_BLUE)
+                        .reinterpretAsInts()
+                        .intoArray(dst, i);
+            }
+            return i;
+        }
+
+        static int rgbToIntArgb(byte[] src, int[] dst) {
+            int i = 0;
+            // Each load reads 16 bytes of which 12 are used
+            for (; 3 * i + BYTE_LANES <= src.length && i + INT_LANES <= dst.length; i += INT_LANES) {
+                ByteVector.fromArray(BYTES, src, 3 * i)
+                        .rearrange(RGB_TO_INT)
+                        .reinterpretAsInts()
+                        .or(OPAQUE)
+                        .intoArray(dst, i);
+            }
+            return i;
+        }
+
+        private static VectorShuffle<Byte> shuffle(IntUnaryOperator indexForLane) {
+            return VectorShuffle.fromOp(BYTES, indexForLane);
+        }
+    }
+}
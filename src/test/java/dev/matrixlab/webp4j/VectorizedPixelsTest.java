@@ -0,0 +1,160 @@
+package dev.matrixlab.webp4j;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Pure Java, so these tests do not need the native library. On JDK 21+ the java21 profile runs them a second
+// time against the packaged jar with jdk.incubator.vector enabled, which is the only run that uses the kernels.
+public class VectorizedPixelsTest {
+
+    // Set by the java21 surefire execution, which must actually load the Java 21 version of VectorizedPixels
+    private static final boolean EXPECT_VECTOR = Boolean.getBoolean("webp4j.test.expectVector");
+
+    // Every length up to several vectors, so that every tail length is covered
+    private static final int MAX_PIXELS = 67;
+
+    @Test
+    public void testVectorPathIsUsedWhenExpected() {
+        assertEquals(EXPECT_VECTOR, VectorizedPixels.isAvailable(), "Unexpected VectorizedPixels implementation.");
+        if (EXPECT_VECTOR) {
+            assertTrue(VectorizedPixels.intArgbToRgba(new int[64], new byte[256]) > 0,
+                    "Vectorized kernel converted nothing.");
+        }
+    }
+
+    @Test
+    public void testKernelsMatchScalarConversion() {
+        Random random = new Random(42);
+        for (int pixels = 0; pixels <= MAX_PIXELS; pixels++) {
+            int[] ints = random.ints(pixels).toArray();
+            byte[] rgb = randomBytes(random, pixels * 3);
+            byte[] rgba = randomBytes(random, pixels * 4);
+
+            // 0xAARRGGBB -> R, G, B, A
+            byte[] expected = new byte[pixels * 4];
+            for (int i = 0; i < pixels; i++) {
+                putRgba(expected, i, ints[i] >> 16, ints[i] >> 8, ints[i], ints[i] >> 24);
+            }
+            byte[] actual = new byte[pixels * 4];
+            assertPrefix(expected, actual, VectorizedPixels.intArgbToRgba(ints, actual), 4, "intArgbToRgba");
+
+            // 0x..RRGGBB -> R, G, B
+            expected = new byte[pixels * 3];
+            for (int i = 0; i < pixels; i++) {
+                putRgb(expected, i, ints[i] >> 16, ints[i] >> 8, ints[i]);
+            }
+            actual = new byte[pixels * 3];
+            assertPrefix(expected, actual, VectorizedPixels.intRgbToRgb(ints, actual), 3, "intRgbToRgb");
+
+            // 0x..BBGGRR -> R, G, B
+            for (int i = 0; i < pixels; i++) {
+                putRgb(expected, i, ints[i], ints[i] >> 8, ints[i] >> 16);
+            }
+            actual = new byte[pixels * 3];
+            assertPrefix(expected, actual, VectorizedPixels.intBgrToRgb(ints, actual), 3, "intBgrToRgb");
+
+            // B, G, R -> R, G, B
+            for (int i = 0; i < pixels; i++) {
+                putRgb(expected, i, rgb[3 * i + 2], rgb[3 * i + 1], rgb[3 * i]);
+            }
+            actual = new byte[pixels * 3];
+            assertPrefix(expected, actual, VectorizedPixels.bgrToRgb(rgb, actual), 3, "bgrToRgb");
+
+            // A, B, G, R -> R, G, B, A
+            expected = new byte[pixels * 4];
+            for (int i = 0; i < pixels; i++) {
+                putRgba(expected, i, rgba[4 * i + 3], rgba[4 * i + 2], rgba[4 * i + 1], rgba[4 * i]);
+            }
+            actual = new byte[pixels * 4];
+            assertPrefix(expected, actual, VectorizedPixels.abgrToRgba(rgba, actual), 4, "abgrToRgba");
+
+            // A, B, G, R -> R, G, B
+            expected = new byte[pixels * 3];
+            for (int i = 0; i < pixels; i++) {
+                putRgb(expected, i, rgba[4 * i + 3], rgba[4 * i + 2], rgba[4 * i + 1]);
+            }
+            actual = new byte[pixels * 3];
+            assertPrefix(expected, actual, VectorizedPixels.abgrToRgb(rgba, actual), 3, "abgrToRgb");
+
+            // R, G, B, A -> 0xAARRGGBB
+            int[] expectedInts = new int[pixels];
+            for (int i = 0; i < pixels; i++) {
+                expectedInts[i] = (rgba[4 * i + 3] & 0xFF) << 24 | (rgba[4 * i] & 0xFF) << 16
+                        | (rgba[4 * i + 1] & 0xFF) << 8 | (rgba[4 * i + 2] & 0xFF);
+            }
+            int[] actualInts = new int[pixels];
+            assertPrefix(expectedInts, actualInts, VectorizedPixels.rgbaToIntArgb(rgba, actualInts), "rgbaToIntArgb");
+
+            // R, G, B -> 0xFFRRGGBB
+            for (int i = 0; i < pixels; i++) {
+                expectedInts[i] = 0xFF000000 | (rgb[3 * i] & 0xFF) << 16 | (rgb[3 * i + 1] & 0xFF) << 8
+                        | (rgb[3 * i + 2] & 0xFF);
+            }
+            actualInts = new int[pixels];
+            assertPrefix(expectedInts, actualInts, VectorizedPixels.rgbToIntArgb(rgb, actualInts), "rgbToIntArgb");
+        }
+    }
+
+    @Test
+    public void testImageConversionMatchesGetRGB() {
+        int[] types = {
+                BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_BGR,
+                BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR
+        };
+        Random random = new Random(7);
+        for (int type : types) {
+            // Odd widths, so that rows do not line up with the vectors and every image has a scalar tail
+            for (int width = 1; width <= MAX_PIXELS; width += 2) {
+                BufferedImage image = new BufferedImage(width, 3, type);
+                for (int y = 0; y < image.getHeight(); y++) {
+                    for (int x = 0; x < width; x++) {
+                        image.setRGB(x, y, random.nextInt());
+                    }
+                }
+
+                boolean hasAlpha = image.getColorModel().hasAlpha();
+                byte[] expected = new byte[width * image.getHeight() * (hasAlpha ? 4 : 3)];
+                WebPCodec.processImageByRows(image, expected, width, image.getHeight(), hasAlpha);
+                assertArrayEquals(expected, WebPCodec.convertBufferedImageToBytes(image),
+                        "Conversion differs from getRGB for image type " + type + " and width " + width);
+            }
+        }
+    }
+
+    // The kernels may convert any prefix, including none; what they convert must match the scalar conversion
+    private static void assertPrefix(byte[] expected, byte[] actual, int pixels, int bytesPerPixel, String kernel) {
+        assertTrue(pixels >= 0 && pixels * bytesPerPixel <= expected.length, kernel + " returned " + pixels);
+        assertArrayEquals(Arrays.copyOf(expected, pixels * bytesPerPixel), Arrays.copyOf(actual, pixels * bytesPerPixel),
+                kernel + " differs from the scalar conversion for " + expected.length / bytesPerPixel + " pixels");
+    }
+
+    private static void assertPrefix(int[] expected, int[] actual, int pixels, String kernel) {
+        assertTrue(pixels >= 0 && pixels <= expected.length, kernel + " returned " + pixels);
+        assertArrayEquals(Arrays.copyOf(expected, pixels), Arrays.copyOf(actual, pixels),
+                kernel + " differs from the scalar conversion for " + expected.length + " pixels");
+    }
+
+    private static void putRgb(byte[] output, int pixel, int r, int g, int b) {
+        output[3 * pixel] = (byte) r;
+        output[3 * pixel + 1] = (byte) g;
+        output[3 * pixel + 2] = (byte) b;
+    }
+
+    private static void putRgba(byte[] output, int pixel, int r, int g, int b, int a) {
+        output[4 * pixel] = (byte) r;
+        output[4 * pixel + 1] = (byte) g;
+        output[4 * pixel + 2] = (byte) b;
+        output[4 * pixel + 3] = (byte) a;
+    }
+
+    private static byte[] randomBytes(Random random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
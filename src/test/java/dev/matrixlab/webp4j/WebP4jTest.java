@@ -4,11 +4,17 @@ import org.junit.jupiter.api.Test;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -48,6 +54,9 @@ public class WebP4jTest {
             assertEquals(2248, dimensions[0], "Width does not match expected value.");
             assertEquals(1442, dimensions[1], "Height does not match expected value.");
 
+            // Invalid data is reported as an IOException
+            assertThrows(IOException.class, () -> WebPCodec.getWebPInfo(new byte[0]));
+
         } catch (IOException e) {
             fail("Exception thrown during WebP info retrieval: " + e.getMessage());
         }
@@ -257,4 +266,338 @@ public class WebP4jTest {
         assertFalse(features.hasAlpha, "RGB image should not have alpha channel");
         assertFalse(features.hasAnimation, "Static image should not have animation");
     }
+
+    @Test
+    public void testTranscode() throws IOException {
+        // Load WebP image file to transcode
+        byte[] webPData = Files.readAllBytes(Paths.get(SOURCE_RGB_WEBP));
+
+        // A crop area whose right or bottom edge overflows int is rejected up front
+        assertThrows(IllegalArgumentException.class, () -> new TranscodeOptions().crop(Integer.MAX_VALUE, 0, 10, 10));
+        assertThrows(IllegalArgumentException.class, () -> new TranscodeOptions().crop(0, Integer.MAX_VALUE, 10, 10));
+
+        // Crop the left half and scale it to 562 pixels wide, keeping the aspect ratio
+        TranscodeOptions options = new TranscodeOptions()
+                .crop(0, 0, 1124, 1442)
+                .resize(562, 0)
+                .quality(80.0f);
+        byte[] transcoded = WebPCodec.transcode(webPData, options);
+        assertNotNull(transcoded, "Transcoded WebP data should not be null.");
+        assertTrue(transcoded.length > 0, "Transcoded WebP data should not be empty.");
+
+        // Validate the output dimensions
+        int[] dimensions = WebPCodec.getWebPInfo(transcoded);
+        assertEquals(562, dimensions[0], "Width does not match expected value.");
+        assertEquals(721, dimensions[1], "Height does not match expected value.");
+
+        // An odd crop origin must not be rounded down: compare a lossless crop with the source pixels
+        BufferedImage source = WebPCodec.decodeImage(webPData);
+        byte[] oddCrop = WebPCodec.transcode(webPData, new TranscodeOptions().crop(3, 5, 64, 48).lossless(true));
+        BufferedImage cropped = WebPCodec.decodeImage(oddCrop);
+        assertEquals(64, cropped.getWidth(), "Cropped width does not match expected value.");
+        assertEquals(48, cropped.getHeight(), "Cropped height does not match expected value.");
+        for (int y = 0; y < 48; y++) {
+            for (int x = 0; x < 64; x++) {
+                assertEquals(source.getRGB(x + 3, y + 5), cropped.getRGB(x, y), "Pixel mismatch at " + x + "," + y);
+            }
+        }
+
+        // Odd origin combined with scaling
+        byte[] oddScaled = WebPCodec.transcode(webPData, new TranscodeOptions().crop(1, 1, 101, 51).resize(50, 0));
+        assertArrayEquals(new int[]{50, 25}, WebPCodec.getWebPInfo(oddScaled), "Scaled size does not match.");
+    }
+
+    @Test
+    public void testMetadataChunks() throws IOException {
+        // Load WebP image file
+        byte[] webPData = Files.readAllBytes(Paths.get(SOURCE_RGB_WEBP));
+        byte[] exif = "Exif\0\0test".getBytes(StandardCharsets.US_ASCII);
+
+        // Attach EXIF metadata and read it back
+        byte[] withExif = WebPContainer.setExif(webPData, exif);
+        assertArrayEquals(exif, WebPContainer.getExif(withExif), "EXIF payload does not match.");
+        assertNull(WebPContainer.getXmp(withExif), "XMP chunk should not be present.");
+
+        // The image itself must be untouched
+        assertArrayEquals(WebPCodec.getWebPInfo(webPData), WebPCodec.getWebPInfo(withExif), "Dimensions changed.");
+
+        // Strip all metadata again
+        byte[] stripped = WebPContainer.stripMetadata(withExif);
+        assertNull(WebPContainer.getExif(stripped), "EXIF chunk should have been removed.");
+        assertNotNull(WebPCodec.decodeImage(WebPContainer.extractBitstream(stripped)), "Bitstream should decode.");
+
+        // An animation has no single bitstream, extracting the first frame would drop the others
+        BufferedImage frame = new BufferedImage(16, 8, BufferedImage.TYPE_INT_RGB);
+        byte[] animated = animatedWebP(WebPCodec.encodeLosslessImage(frame), 16, 8, 2);
+        assertArrayEquals(exif, WebPContainer.getExif(WebPContainer.setExif(animated, exif)),
+                "Animated file should be readable by the container.");
+        assertThrows(IOException.class, () -> WebPContainer.extractBitstream(animated));
+    }
+
+    /**
+     * Builds an animated WebP file that shows the image of a still lossless WebP file {@code frames} times.
+     */
+    private static byte[] animatedWebP(byte[] stillLossless, int width, int height, int frames) {
+        // The still file is RIFF header + VP8L chunk, the chunk becomes the frame data
+        byte[] vp8l = Arrays.copyOfRange(stillLossless, 12, stillLossless.length);
+        int anmfSize = 16 + vp8l.length;
+        int riffSize = 4 + (8 + 10) + (8 + 6) + frames * (8 + anmfSize);
+
+        ByteBuffer buffer = ByteBuffer.allocate(8 + riffSize).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(riffSize).put("WEBP".getBytes(StandardCharsets.US_ASCII));
+        // VP8X: animation flag and canvas size
+        buffer.put("VP8X".getBytes(StandardCharsets.US_ASCII)).putInt(10).putInt(0x02);
+        putInt24(buffer, width - 1);
+        putInt24(buffer, height - 1);
+        // ANIM: background color and loop count
+        buffer.put("ANIM".getBytes(StandardCharsets.US_ASCII)).putInt(6).putInt(0).putShort((short) 0);
+        for (int i = 0; i < frames; i++) {
+            // ANMF: offset (0, 0), frame size, 100 ms duration, no flags, then the frame data
+            buffer.put("ANMF".getBytes(StandardCharsets.US_ASCII)).putInt(anmfSize);
+            putInt24(buffer, 0);
+            putInt24(buffer, 0);
+            putInt24(buffer, width - 1);
+            putInt24(buffer, height - 1);
+            putInt24(buffer, 100);
+            buffer.put((byte) 0).put(vp8l);
+        }
+        return buffer.array();
+    }
+
+    private static void putInt24(ByteBuffer buffer, int value) {
+        buffer.put((byte) value).put((byte) (value >> 8)).put((byte) (value >> 16));
+    }
+
+    @Test
+    public void testYUV420RoundTrip() throws IOException {
+        // Load WebP image file and allocate the planes
+        byte[] webPData = Files.readAllBytes(Paths.get(SOURCE_RGB_WEBP));
+        int[] dimensions = WebPCodec.getWebPInfo(webPData);
+        int width = dimensions[0];
+        int height = dimensions[1];
+        int uvStride = (width + 1) / 2;
+        byte[] y = new byte[width * height];
+        byte[] u = new byte[uvStride * ((height + 1) / 2)];
+        byte[] v = new byte[u.length];
+
+        // Decode straight to YUV and encode the planes again
+        WebPCodec.decodeYUV420Into(webPData, y, width, u, v, uvStride);
+        byte[] encodedWebP = WebPCodec.encodeYUV420(y, u, v, width, height, width, uvStride, 75.0f);
+        assertNotNull(encodedWebP, "YUV420 WebP encoding failed.");
+
+        // Validate the encoded dimensions
+        assertArrayEquals(dimensions, WebPCodec.getWebPInfo(encodedWebP), "Dimensions do not match.");
+    }
+
+    @Test
+    public void testGrayImageRoundTrip() throws IOException {
+        // Create a horizontal gray gradient
+        BufferedImage grayImage = new BufferedImage(256, 64, BufferedImage.TYPE_BYTE_GRAY);
+        for (int y = 0; y < 64; y++) {
+            for (int x = 0; x < 256; x++) {
+                grayImage.getRaster().setSample(x, y, 0, x);
+            }
+        }
+
+        // Encode through the grayscale fast path
+        byte[] encodedWebP = WebPCodec.encodeLosslessImage(grayImage);
+        assertNotNull(encodedWebP, "Lossless WebP encoding failed for gray image.");
+
+        // Decode back into a gray image
+        BufferedImage image = WebPCodec.decodeGrayImage(encodedWebP);
+        assertEquals(BufferedImage.TYPE_BYTE_GRAY, image.getType(), "Decoded image should be grayscale.");
+        assertEquals(256, image.getWidth(), "Width does not match expected value.");
+        assertEquals(64, image.getHeight(), "Height does not match expected value.");
+
+        // Luma is limited range, so allow a small rounding difference
+        for (int x = 0; x < 256; x += 15) {
+            int sample = image.getRaster().getSample(x, 32, 0);
+            assertTrue(Math.abs(sample - x) <= 3, "Gray value at " + x + " differs too much: " + sample);
+        }
+    }
+
+    @Test
+    public void testFastPathsMatchGetRGB() {
+        // 8-bit gray, every sample value
+        BufferedImage byteGray = new BufferedImage(256, 2, BufferedImage.TYPE_BYTE_GRAY);
+        for (int x = 0; x < 256; x++) {
+            byteGray.getRaster().setSample(x, 0, 0, x);
+            byteGray.getRaster().setSample(x, 1, 0, 255 - x);
+        }
+        assertFastPathMatchesGetRGB(byteGray);
+
+        // 16-bit gray, every sample value
+        BufferedImage ushortGray = new BufferedImage(256, 256, BufferedImage.TYPE_USHORT_GRAY);
+        for (int y = 0; y < 256; y++) {
+            for (int x = 0; x < 256; x++) {
+                ushortGray.getRaster().setSample(x, y, 0, y * 256 + x);
+            }
+        }
+        assertFastPathMatchesGetRGB(ushortGray);
+
+        // Opaque palette of the default TYPE_BYTE_INDEXED image
+        BufferedImage indexed = new BufferedImage(256, 1, BufferedImage.TYPE_BYTE_INDEXED);
+        for (int x = 0; x < 256; x++) {
+            indexed.getRaster().setSample(x, 0, 0, x);
+        }
+        assertFastPathMatchesGetRGB(indexed);
+
+        // Small palette with alpha, including indices outside the palette
+        byte[] r = {(byte) 255, 0, 0, 10};
+        byte[] g = {0, (byte) 255, 0, 20};
+        byte[] b = {0, 0, (byte) 255, 30};
+        byte[] a = {(byte) 255, (byte) 128, 0, 64};
+        IndexColorModel colorModel = new IndexColorModel(8, 4, r, g, b, a);
+        BufferedImage indexedAlpha = new BufferedImage(256, 1, BufferedImage.TYPE_BYTE_INDEXED, colorModel);
+        for (int x = 0; x < 256; x++) {
+            indexedAlpha.getRaster().setSample(x, 0, 0, x);
+        }
+        assertFastPathMatchesGetRGB(indexedAlpha);
+    }
+
+    // Compares the type-specific conversion of WebPCodec with its generic getRGB based conversion
+    private static void assertFastPathMatchesGetRGB(BufferedImage image) {
+        boolean hasAlpha = image.getColorModel().hasAlpha();
+        byte[] expected = new byte[image.getWidth() * image.getHeight() * (hasAlpha ? 4 : 3)];
+        WebPCodec.processImageByRows(image, expected, image.getWidth(), image.getHeight(), hasAlpha);
+        byte[] actual = WebPCodec.convertBufferedImageToBytes(image);
+
+        assertArrayEquals(expected, actual, "Fast path differs from getRGB for image type " + image.getType());
+    }
+
+    @Test
+    public void testSessions() throws IOException {
+        // Two frames of the same size, so the second one reuses the native picture
+        BufferedImage first = new BufferedImage(64, 48, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage second = new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < 48; y++) {
+            for (int x = 0; x < 64; x++) {
+                first.setRGB(x, y, 0x80FF0000 | (x * 4) << 8 | y * 5);
+                second.setRGB(x, y, (y * 5) << 16 | (x * 4));
+            }
+        }
+
+        try (WebPEncoderSession encoder = new WebPEncoderSession(90, true);
+             WebPDecoderSession decoder = new WebPDecoderSession()) {
+            for (BufferedImage original : new BufferedImage[]{first, second}) {
+                byte[] encodedWebP = encoder.encode(original);
+                assertNotNull(encodedWebP, "Session encoding failed.");
+
+                // Lossless, so the pixels must survive unchanged
+                BufferedImage image = decoder.decode(encodedWebP);
+                assertEquals(original.getType(), image.getType(), "Image type does not match.");
+                for (int y = 0; y < 48; y += 7) {
+                    for (int x = 0; x < 64; x += 9) {
+                        assertEquals(original.getRGB(x, y), image.getRGB(x, y), "Pixel mismatch at " + x + "," + y);
+                    }
+                }
+            }
+
+            // Closed sessions must not be used any more
+            encoder.close();
+            assertThrows(IllegalStateException.class, () -> encoder.encode(first));
+        }
+    }
+
+    @Test
+    public void testSliceDecoding() throws IOException {
+        // Embed the WebP payload in a larger buffer, as received from the network
+        byte[] webPData = Files.readAllBytes(Paths.get(SOURCE_RGB_WEBP));
+        byte[] buffer = new byte[webPData.length + 100];
+        Arrays.fill(buffer, (byte) 0x55);
+        System.arraycopy(webPData, 0, buffer, 37, webPData.length);
+
+        // The slice must give the same result as the whole array
+        assertArrayEquals(WebPCodec.getWebPInfo(webPData), WebPCodec.getWebPInfo(buffer, 37, webPData.length),
+                "Dimensions do not match.");
+        BufferedImage expected = WebPCodec.decodeImage(webPData);
+        BufferedImage image = WebPCodec.decodeImage(buffer, 37, webPData.length);
+        assertEquals(expected.getType(), image.getType(), "Image type does not match.");
+        for (int y = 0; y < image.getHeight(); y += 97) {
+            for (int x = 0; x < image.getWidth(); x += 89) {
+                assertEquals(expected.getRGB(x, y), image.getRGB(x, y), "Pixel mismatch at " + x + "," + y);
+            }
+        }
+
+        // Ranges outside the array are rejected
+        assertThrows(IndexOutOfBoundsException.class, () -> WebPCodec.decodeImage(buffer, 200, webPData.length));
+
+        // Rows are decoded in place from outputOffset; padding and the bytes around them are left untouched
+        NativeWebP nativeWebP = new NativeWebP();
+        int width = expected.getWidth();
+        int height = expected.getHeight();
+        byte[] packed = new byte[width * 3 * height];
+        assertTrue(nativeWebP.decodeRGBInto(webPData, packed, width * 3), "Whole-array decoding failed.");
+        int outputOffset = 13;
+        int outputStride = width * 3 + 5;
+        byte[] output = new byte[outputOffset + outputStride * height + 7];
+        Arrays.fill(output, (byte) 0x55);
+        assertTrue(nativeWebP.decodeRGBIntoSlice(buffer, 37, webPData.length, output, outputOffset, outputStride),
+                "Slice decoding failed.");
+        for (int y = 0; y < height; y++) {
+            int row = outputOffset + y * outputStride;
+            assertArrayEquals(Arrays.copyOfRange(packed, y * width * 3, (y + 1) * width * 3),
+                    Arrays.copyOfRange(output, row, row + width * 3), "Row " + y + " does not match.");
+            for (int i = row + width * 3; i < row + outputStride; i++) {
+                assertEquals((byte) 0x55, output[i], "Row padding was overwritten at " + i);
+            }
+        }
+        for (int i = 0; i < outputOffset; i++) {
+            assertEquals((byte) 0x55, output[i], "Bytes before outputOffset were overwritten at " + i);
+        }
+        int lastFittingOffset = output.length - (outputStride * (height - 1) + width * 3);
+        assertFalse(nativeWebP.decodeRGBIntoSlice(buffer, 37, webPData.length, output, lastFittingOffset + 1, outputStride),
+                "Rows past the end of the output must be rejected.");
+        assertFalse(nativeWebP.decodeRGBIntoSlice(buffer, 37, webPData.length, output, output.length - 1, -outputStride),
+                "Negative strides must be rejected.");
+
+        // The YUV, gray and container operations accept the same range
+        int uvStride = (width + 1) / 2;
+        byte[] y = new byte[width * height];
+        byte[] u = new byte[uvStride * ((height + 1) / 2)];
+        byte[] v = new byte[u.length];
+        byte[] ySlice = new byte[y.length];
+        byte[] uSlice = new byte[u.length];
+        byte[] vSlice = new byte[v.length];
+        WebPCodec.decodeYUV420Into(webPData, y, width, u, v, uvStride);
+        WebPCodec.decodeYUV420Into(buffer, 37, webPData.length, ySlice, width, uSlice, vSlice, uvStride);
+        assertArrayEquals(y, ySlice, "Luma plane does not match.");
+        assertArrayEquals(u, uSlice, "U plane does not match.");
+        assertArrayEquals(v, vSlice, "V plane does not match.");
+
+        BufferedImage gray = WebPCodec.decodeGrayImage(buffer, 37, webPData.length);
+        assertArrayEquals(((DataBufferByte) WebPCodec.decodeGrayImage(webPData).getRaster().getDataBuffer()).getData(),
+                ((DataBufferByte) gray.getRaster().getDataBuffer()).getData(), "Gray image does not match.");
+
+        byte[] exif = "Exif\0\0slice".getBytes(StandardCharsets.US_ASCII);
+        byte[] withExif = WebPContainer.setChunk(buffer, 37, webPData.length, WebPContainer.EXIF, exif);
+        assertArrayEquals(exif, WebPContainer.getExif(withExif), "EXIF payload does not match.");
+        assertArrayEquals(WebPContainer.extractBitstream(webPData),
+                WebPContainer.extractBitstream(buffer, 37, webPData.length), "Bitstream does not match.");
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> WebPContainer.getChunk(buffer, 200, webPData.length, WebPContainer.EXIF));
+    }
+
+    @Test
+    public void testEncodeToTargetSize() throws IOException {
+        BufferedImage sourceImage = WebPCodec.decodeImage(Files.readAllBytes(Paths.get(SOURCE_RGB_WEBP)));
+
+        // Size of the image at the highest quality, the target is well below it
+        TargetSizeOptions options = new TargetSizeOptions().qualityRange(5, 95).maxPasses(7);
+        int fullSize = WebPCodec.encodeImage(sourceImage, 95).length;
+        int maxBytes = fullSize / 3;
+
+        TargetSizeResult result = WebPCodec.encodeToTargetSize(sourceImage, maxBytes, options);
+        assertTrue(result.isTargetMet(), "Target size should be reachable: " + result);
+        assertTrue(result.getSize() <= maxBytes, "Encoded image is too large: " + result);
+        assertTrue(result.getPasses() <= 7, "Too many passes: " + result);
+        assertTrue(result.getQuality() >= 5 && result.getQuality() < 95, "Unexpected quality: " + result);
+        assertNotNull(WebPCodec.decodeImage(result.getData()), "Encoded image should decode.");
+
+        // An impossible target returns the smallest output
+        TargetSizeResult tooSmall = WebPCodec.encodeToTargetSize(sourceImage, 16, options);
+        assertFalse(tooSmall.isTargetMet(), "Target size should not be reachable.");
+        assertEquals(5, tooSmall.getQuality(), "Smallest output should use the minimum quality.");
+        assertEquals(2, tooSmall.getPasses(), "Search should stop after the minimum quality.");
+    }
 }
\ No newline at end of file
@@ -0,0 +1,152 @@
+package dev.matrixlab.webp4j.cli;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// None of these tests convert a real image, so they do not need the native library
+public class BulkConverterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testManifestCompactsOnLoad() throws IOException {
+        Path a = write(tempDir.resolve("a.png"), "a");
+        Path b = write(tempDir.resolve("b.png"), "bb");
+        BasicFileAttributes aAttrs = Files.readAttributes(a, BasicFileAttributes.class);
+        BasicFileAttributes bAttrs = Files.readAttributes(b, BasicFileAttributes.class);
+
+        // An outdated entry, its replacement, a garbage line and an entry cut off by a killed process
+        Path file = tempDir.resolve(ConversionManifest.FILE_NAME);
+        String outdated = "1\t0\ta.png";
+        String complete = entry(aAttrs, "a.png");
+        String truncated = entry(bAttrs, "b.png");
+        Files.write(file, (outdated + "\n" + complete + "\nnonsense\n" + truncated).getBytes(StandardCharsets.UTF_8));
+
+        ConversionManifest manifest = ConversionManifest.load(tempDir);
+        assertEquals(1, manifest.size(), "Only the latest complete entry should be loaded.");
+        assertTrue(manifest.isCompleted("a.png", aAttrs), "Complete entry should be loaded.");
+        assertFalse(manifest.isCompleted("b.png", bAttrs), "Truncated entry should be ignored.");
+        assertEquals(List.of(complete), Files.readAllLines(file, StandardCharsets.UTF_8),
+                "Manifest should be compacted to its valid entries.");
+
+        manifest.markCompleted("b.png", bAttrs);
+        manifest = ConversionManifest.load(tempDir);
+        assertEquals(2, manifest.size(), "Both entries should be loaded.");
+        assertTrue(manifest.isCompleted("b.png", bAttrs), "Appended entry should be loaded.");
+        assertEquals(2, Files.readAllLines(file, StandardCharsets.UTF_8).size(), "Compact manifest should be kept.");
+    }
+
+    @Test
+    public void testManifestDetectsChangedSources() throws IOException {
+        Path a = write(tempDir.resolve("a.png"), "a");
+        ConversionManifest.load(tempDir).markCompleted("a.png", Files.readAttributes(a, BasicFileAttributes.class));
+
+        // Same size, newer modification time
+        write(a, "b");
+        Files.setLastModifiedTime(a, FileTime.fromMillis(Files.getLastModifiedTime(a).toMillis() + 10_000));
+        assertFalse(ConversionManifest.load(tempDir).isCompleted("a.png", Files.readAttributes(a, BasicFileAttributes.class)),
+                "Modified source should not count as completed.");
+    }
+
+    @Test
+    public void testOutputPaths() {
+        assertEquals("photos/a.png.webp", BulkConverter.toOutputPath("photos/a.png"));
+        assertNotEquals(BulkConverter.toOutputPath("a.png"), BulkConverter.toOutputPath("a.jpg"),
+                "Sources that only differ in their extension must not share an output.");
+
+        assertTrue(BulkConverter.isSupported(Paths.get("A.JPEG")), "Extensions are case-insensitive.");
+        assertFalse(BulkConverter.isSupported(Paths.get("a.webp")), "WebP files are not converted again.");
+    }
+
+    @Test
+    public void testSkipAndResume() throws IOException {
+        Path input = tempDir.resolve("input");
+        Path output = tempDir.resolve("output");
+        // Not valid images: every conversion attempt fails, so "failed" counts the files that were not skipped
+        Path a = write(input.resolve("a.png"), "not an image");
+        write(input.resolve("sub/b.jpg"), "not an image");
+        Path c = write(input.resolve("sub/c.png"), "not an image");
+
+        // The outputs of a.png and sub/c.png are newer than their sources
+        long newer = Files.getLastModifiedTime(a).toMillis() + 10_000;
+        Path aOutput = write(output.resolve("a.png.webp"), "webp");
+        Files.setLastModifiedTime(aOutput, FileTime.fromMillis(newer));
+        Files.setLastModifiedTime(write(output.resolve("sub/c.png.webp"), "webp"), FileTime.fromMillis(newer));
+
+        ConversionStats first = run(input, output, false);
+        assertEquals(2, first.skipped.sum(), "Up-to-date outputs should be skipped.");
+        assertEquals(1, first.failed.sum(), "Missing output should be converted.");
+
+        // Every output directory records its own files
+        BasicFileAttributes cAttrs = Files.readAttributes(c, BasicFileAttributes.class);
+        assertEquals(List.of(entry(cAttrs, "c.png")),
+                Files.readAllLines(output.resolve("sub").resolve(ConversionManifest.FILE_NAME), StandardCharsets.UTF_8),
+                "Manifest of sub should only hold c.png.");
+
+        // Resumed run: a.png is in the manifest, so it is skipped although its output is now older than the source
+        Files.setLastModifiedTime(aOutput, FileTime.fromMillis(0));
+        ConversionStats resumed = run(input, output, false);
+        assertEquals(2, resumed.skipped.sum(), "Completed files should be skipped.");
+        assertEquals(1, resumed.failed.sum(), "Failed file should be retried.");
+
+        // An entry is not trusted once its output is gone
+        Files.delete(aOutput);
+        ConversionStats deleted = run(input, output, false);
+        assertEquals(1, deleted.skipped.sum(), "File without output should not be skipped.");
+        assertEquals(2, deleted.failed.sum(), "File without output should be converted again.");
+
+        // A source edited after its conversion is converted again
+        write(c, "still not an image");
+        Files.setLastModifiedTime(c, FileTime.fromMillis(newer + 10_000));
+        ConversionStats edited = run(input, output, false);
+        assertEquals(0, edited.skipped.sum(), "Edited source should not be skipped.");
+        assertEquals(3, edited.failed.sum(), "Edited source should be converted again.");
+
+        ConversionStats forced = run(input, output, true);
+        assertEquals(0, forced.skipped.sum(), "Forced run should not skip anything.");
+        assertEquals(3, forced.failed.sum(), "Forced run should convert every file.");
+    }
+
+    @Test
+    public void testMoreFilesThanQueueSlots() throws IOException {
+        Path input = tempDir.resolve("input");
+        for (int i = 0; i < 50; i++) {
+            write(input.resolve(i + ".png"), "not an image");
+        }
+
+        // One worker has 5 slots, so the walker has to wait for the worker many times
+        BulkConverter converter = new BulkConverter(input, tempDir.resolve("output"), 80, false, 1,
+                64L * 1024 * 1024, false, new PrintStream(new ByteArrayOutputStream(), true));
+        ConversionStats stats = converter.run(0);
+        assertEquals(50, stats.failed.sum(), "Every file should be processed once.");
+    }
+
+    private ConversionStats run(Path input, Path output, boolean force) throws IOException {
+        BulkConverter converter = new BulkConverter(input, output, 80, false, 2, 64L * 1024 * 1024, force,
+                new PrintStream(new ByteArrayOutputStream(), true));
+        return converter.run(0);
+    }
+
+    private static String entry(BasicFileAttributes attrs, String fileName) {
+        return attrs.size() + "\t" + attrs.lastModifiedTime().toMillis() + "\t" + fileName;
+    }
+
+    private static Path write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        return Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+}